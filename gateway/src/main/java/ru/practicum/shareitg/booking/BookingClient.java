@@ -3,29 +3,56 @@ package ru.practicum.shareitg.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareitg.booking.dto.BookItemRequestDto;
+import ru.practicum.shareitg.booking.dto.BookingDecisionDto;
 import ru.practicum.shareitg.booking.dto.BookingState;
 import ru.practicum.shareitg.common.client.BaseClient;
 import ru.practicum.shareitg.common.exception.BookingTimeNotAllowedException;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 @Service
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    private final HttpClient streamClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private final URI streamUri;
+    private final Duration streamTimeout;
+
     @Autowired
-    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder,
+                         @Value("${shareit-server.stream.timeout:PT31M}") Duration streamTimeout) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
                         .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                         .build()
         );
+        this.streamUri = URI.create(serverUrl + API_PREFIX + "/stream");
+        this.streamTimeout = streamTimeout;
     }
 
     public ResponseEntity<Object> addBooking(long userId, BookItemRequestDto requestDto) {
@@ -43,21 +70,143 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + "?approved=" + approved, userId);
     }
 
-    public ResponseEntity<Object> getAllBookings(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> considerationBookings(long userId, List<BookingDecisionDto> decisions) {
+        return patch("/batch", userId, decisions);
+    }
+
+    public ResponseEntity<Object> getAllBookings(long userId, BookingState state, Integer from, Integer size,
+                                                 String cursor, Long itemId, LocalDateTime rangeStart,
+                                                 LocalDateTime rangeEnd) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = withFilter("?state={state}&from={from}&size={size}", itemId, rangeStart, rangeEnd, parameters);
+        return get(withCursor(path, cursor, parameters), userId, parameters);
     }
 
-    public ResponseEntity<Object> getAllBookingsByOwner(long userId, BookingState state, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllBookingsByOwner(long userId, BookingState state, Integer from, Integer size,
+                                                        String cursor, Long itemId, LocalDateTime rangeStart,
+                                                        LocalDateTime rangeEnd) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "state", state.name(),
                 "from", from,
                 "size", size
-        );
-        return get("/owner?state={state}&from={from}&size={size}", userId, parameters);
+        ));
+        String path = withFilter("/owner?state={state}&from={from}&size={size}", itemId, rangeStart, rangeEnd,
+                parameters);
+        return get(withCursor(path, cursor, parameters), userId, parameters);
+    }
+
+    public void exportBookingsByOwner(long userId, HttpServletResponse response) throws IOException {
+        stream("/owner/export", userId, response);
+    }
+
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> streamBookings(long userId,
+                                                                            @Nullable String lastEventId) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(streamUri)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE + ", " + MediaType.APPLICATION_JSON_VALUE);
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", lastEventId);
+        }
+        DeferredResult<ResponseEntity<ResponseBodyEmitter>> result = new DeferredResult<>(streamTimeout.toMillis());
+        streamClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofPublisher())
+                .whenComplete((response, e) -> {
+                    if (e != null) {
+                        result.setErrorResult(e);
+                    } else if (response.statusCode() == HttpStatus.OK.value()) {
+                        result.setResult(relayEvents(response.body()));
+                    } else {
+                        relayError(response, result);
+                    }
+                });
+        return result;
+    }
+
+    private ResponseEntity<ResponseBodyEmitter> relayEvents(Flow.Publisher<List<ByteBuffer>> events) {
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(streamTimeout.toMillis());
+        events.subscribe(new Flow.Subscriber<>() {
+            private Flow.Subscription subscription;
+
+            @Override
+            public void onSubscribe(Flow.Subscription subscription) {
+                this.subscription = subscription;
+                emitter.onCompletion(subscription::cancel);
+                emitter.onTimeout(subscription::cancel);
+                emitter.onError(error -> subscription.cancel());
+                subscription.request(1);
+            }
+
+            @Override
+            public void onNext(List<ByteBuffer> chunks) {
+                try {
+                    for (ByteBuffer chunk : chunks) {
+                        byte[] bytes = new byte[chunk.remaining()];
+                        chunk.get(bytes);
+                        emitter.send(bytes, MediaType.TEXT_EVENT_STREAM);
+                    }
+                    subscription.request(1);
+                } catch (IOException | IllegalStateException e) {
+                    subscription.cancel();
+                }
+            }
+
+            @Override
+            public void onError(Throwable throwable) {
+                emitter.completeWithError(throwable);
+            }
+
+            @Override
+            public void onComplete() {
+                emitter.complete();
+            }
+        });
+        return ResponseEntity.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .cacheControl(CacheControl.noCache())
+                .header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    private void relayError(HttpResponse<Flow.Publisher<List<ByteBuffer>>> response,
+                            DeferredResult<ResponseEntity<ResponseBodyEmitter>> result) {
+        HttpResponse.BodySubscriber<String> body = HttpResponse.BodySubscribers.ofString(StandardCharsets.UTF_8);
+        response.body().subscribe(body);
+        body.getBody().whenComplete((error, e) -> {
+            if (e != null) {
+                result.setErrorResult(e);
+                return;
+            }
+            ResponseBodyEmitter emitter = new ResponseBodyEmitter();
+            result.setResult(ResponseEntity.status(response.statusCode())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(emitter));
+            try {
+                emitter.send(error, MediaType.APPLICATION_JSON);
+                emitter.complete();
+            } catch (IOException ex) {
+                emitter.completeWithError(ex);
+            }
+        });
+    }
+
+    private String withFilter(String path, Long itemId, LocalDateTime rangeStart, LocalDateTime rangeEnd,
+                              Map<String, Object> parameters) {
+        StringBuilder filteredPath = new StringBuilder(path);
+        if (itemId != null) {
+            parameters.put("itemId", itemId);
+            filteredPath.append("&itemId={itemId}");
+        }
+        if (rangeStart != null) {
+            parameters.put("rangeStart", rangeStart);
+            filteredPath.append("&rangeStart={rangeStart}");
+        }
+        if (rangeEnd != null) {
+            parameters.put("rangeEnd", rangeEnd);
+            filteredPath.append("&rangeEnd={rangeEnd}");
+        }
+        return filteredPath.toString();
     }
 }
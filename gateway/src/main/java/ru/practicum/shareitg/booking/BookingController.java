@@ -2,16 +2,24 @@ package ru.practicum.shareitg.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareitg.booking.dto.BookItemRequestDto;
+import ru.practicum.shareitg.booking.dto.BookingDecisionDto;
 import ru.practicum.shareitg.booking.dto.BookingState;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Controller
 @RequestMapping(path = "/bookings")
@@ -20,6 +28,8 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class BookingController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+
     private final BookingClient bookingClient;
 
     @PostMapping
@@ -43,28 +53,75 @@ public class BookingController {
         return bookingClient.considerationBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> considerationBookings(@RequestHeader(value = "X-Sharer-User-Id") long userId,
+                                                        @RequestBody List<BookingDecisionDto> decisions) {
+        if (decisions.isEmpty() || decisions.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batch must contain from 1 to " + MAX_BATCH_SIZE + " decisions");
+        }
+        log.info("Considerate {} bookings in batch, userId={}", decisions.size(), userId);
+        return bookingClient.considerationBookings(userId, decisions);
+    }
 
     @GetMapping
     public ResponseEntity<Object> getAllBookings(@RequestHeader("X-Sharer-User-Id") long userId,
                                                  @RequestParam(name = "state", defaultValue = "all") String stateParam,
                                                  @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+                                                 @Positive @RequestParam(name = "size", defaultValue = "10") Integer size,
+                                                 @RequestParam(required = false) String cursor,
+                                                 @RequestParam(required = false) Long itemId,
+                                                 @RequestParam(required = false)
+                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                 LocalDateTime rangeStart,
+                                                 @RequestParam(required = false)
+                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                 LocalDateTime rangeEnd) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get booking with state {}, userId={}, from={}, size={}", stateParam, userId, from, size);
-        return bookingClient.getAllBookings(userId, state, from, size);
+        checkRange(rangeStart, rangeEnd);
+        log.info("Get booking with state {}, userId={}, from={}, size={}, cursor={}, itemId={}, range=[{}, {})",
+                stateParam, userId, from, size, cursor, itemId, rangeStart, rangeEnd);
+        return bookingClient.getAllBookings(userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getAllBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId,
                                                         @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
                                                         @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                        @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                                        @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Long itemId,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime rangeStart,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                        LocalDateTime rangeEnd) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
-        log.info("Get all bookings by ownerId={}", userId);
-        return bookingClient.getAllBookingsByOwner(userId, state, from, size);
+        checkRange(rangeStart, rangeEnd);
+        log.info("Get all bookings by ownerId={}, itemId={}, range=[{}, {})", userId, itemId, rangeStart, rangeEnd);
+        return bookingClient.getAllBookingsByOwner(userId, state, from, size, cursor, itemId, rangeStart, rangeEnd);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId,
+                                      HttpServletResponse response) throws IOException {
+        log.info("Export bookings by ownerId={}", userId);
+        bookingClient.exportBookingsByOwner(userId, response);
     }
 
+    @GetMapping("/stream")
+    public DeferredResult<ResponseEntity<ResponseBodyEmitter>> streamBookings(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        log.info("Stream bookings of userId={}, lastEventId={}", userId, lastEventId);
+        return bookingClient.streamBookings(userId, lastEventId);
+    }
 
+    private void checkRange(LocalDateTime rangeStart, LocalDateTime rangeEnd) {
+        if (rangeStart != null && rangeEnd != null && !rangeStart.isBefore(rangeEnd)) {
+            throw new IllegalArgumentException("rangeEnd must be after rangeStart");
+        }
+    }
 }
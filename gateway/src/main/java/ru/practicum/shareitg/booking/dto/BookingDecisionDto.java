@@ -0,0 +1,16 @@
+package ru.practicum.shareitg.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class BookingDecisionDto {
+
+	private Long bookingId;
+	private Boolean approved;
+}
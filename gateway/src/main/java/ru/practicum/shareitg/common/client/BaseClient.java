@@ -2,9 +2,14 @@ package ru.practicum.shareitg.common.client;
 
 import org.springframework.http.*;
 import org.springframework.lang.Nullable;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
 
@@ -79,6 +84,32 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected void stream(String path, long userId, HttpServletResponse response) throws IOException {
+        try {
+            rest.execute(path, HttpMethod.GET, request -> {
+                request.getHeaders().setAccept(List.of(MediaType.ALL));
+                request.getHeaders().set("X-Sharer-User-Id", String.valueOf(userId));
+            }, shareitServerResponse -> {
+                response.setStatus(shareitServerResponse.getRawStatusCode());
+                relayBody(shareitServerResponse.getHeaders().getContentType(), shareitServerResponse.getBody(),
+                        response);
+                return null;
+            });
+        } catch (HttpStatusCodeException e) {
+            response.setStatus(e.getRawStatusCode());
+            relayBody(e.getResponseHeaders() == null ? null : e.getResponseHeaders().getContentType(),
+                    new ByteArrayInputStream(e.getResponseBodyAsByteArray()), response);
+        }
+    }
+
+    protected String withCursor(String path, @Nullable String cursor, Map<String, Object> parameters) {
+        if (cursor == null) {
+            return path;
+        }
+        parameters.put("cursor", cursor);
+        return path + "&cursor={cursor}";
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId,
                                                           @Nullable Map<String, Object> parameters, @Nullable T body) {
         HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
@@ -96,6 +127,14 @@ public class BaseClient {
         return prepareGatewayResponse(shareitServerResponse);
     }
 
+    private static void relayBody(@Nullable MediaType contentType, InputStream body,
+                                  HttpServletResponse response) throws IOException {
+        if (contentType != null) {
+            response.setContentType(contentType.toString());
+        }
+        StreamUtils.copy(body, response.getOutputStream());
+    }
+
     private HttpHeaders defaultHeaders(Long userId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
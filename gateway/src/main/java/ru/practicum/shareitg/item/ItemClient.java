@@ -11,6 +11,11 @@ import ru.practicum.shareitg.common.client.BaseClient;
 import ru.practicum.shareitg.item.dto.CommentDto;
 import ru.practicum.shareitg.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -32,6 +37,10 @@ public class ItemClient extends BaseClient {
         return post("", userId, itemDto);
     }
 
+    public ResponseEntity<Object> createItems(List<ItemDto> itemsDto, Long userId) {
+        return post("/batch", userId, itemsDto);
+    }
+
     public ResponseEntity<Object> updateItemById(ItemDto itemDto, Long itemId, Long userId) {
         return patch("/" + itemId, userId, itemDto);
     }
@@ -40,12 +49,16 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
-    public ResponseEntity<Object> getItemsByOwner(Long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getItemsByOwner(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("?from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("?from={from}&size={size}", cursor, parameters), userId, parameters);
+    }
+
+    public void exportItemsByOwner(Long userId, HttpServletResponse response) throws IOException {
+        stream("/export", userId, response);
     }
 
     public ResponseEntity<Object> searchItemsByRequest(Long userId, String text, Integer from, Integer size) {
@@ -57,7 +70,24 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&from={from}&size={size}", userId, parameters);
     }
 
+    public ResponseEntity<Object> getAvailability(Long itemId, Long userId, LocalDateTime from, LocalDateTime to) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to
+        );
+        return get("/" + itemId + "/availability?from={from}&to={to}", userId, parameters);
+    }
+
     public ResponseEntity<Object> createComment(Long itemId, Long userId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
+
+    public ResponseEntity<Object> getComments(Long itemId, Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
+                "from", from,
+                "size", size
+        ));
+        return get(withCursor("/" + itemId + "/comments?from={from}&size={size}", cursor, parameters), userId,
+                parameters);
+    }
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareitg.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -9,9 +10,14 @@ import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareitg.item.dto.CommentDto;
 import ru.practicum.shareitg.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
 
 
 @Controller
@@ -21,6 +27,9 @@ import javax.validation.constraints.PositiveOrZero;
 @Validated
 public class ItemController {
 
+    private static final int MAX_BATCH_SIZE = 1000;
+    private static final Duration MAX_AVAILABILITY_RANGE = Duration.ofDays(366);
+
     private final ItemClient itemClient;
 
     @PostMapping
@@ -30,6 +39,16 @@ public class ItemController {
         return itemClient.createItem(itemDto, userId);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createItems(@RequestBody List<ItemDto> itemsDto,
+                                              @RequestHeader(value = "X-Sharer-User-Id") Long userId) {
+        if (itemsDto.isEmpty() || itemsDto.size() > MAX_BATCH_SIZE) {
+            throw new IllegalArgumentException("batch must contain from 1 to " + MAX_BATCH_SIZE + " items");
+        }
+        log.info("Creating {} items in batch, by userId={}", itemsDto.size(), userId);
+        return itemClient.createItems(itemsDto, userId);
+    }
+
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> updateItemById(@RequestBody ItemDto itemDto, @PathVariable Long itemId,
                                                  @RequestHeader(value = "X-Sharer-User-Id") Long userId) {
@@ -47,9 +66,17 @@ public class ItemController {
     @GetMapping
     public ResponseEntity<Object> getItemsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
                                                   @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                                  @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                                  @Positive @RequestParam(defaultValue = "10") Integer size,
+                                                  @RequestParam(required = false) String cursor) {
         log.info("Get items by owner with Id={}", userId);
-        return itemClient.getItemsByOwner(userId, from, size);
+        return itemClient.getItemsByOwner(userId, from, size, cursor);
+    }
+
+    @GetMapping("/export")
+    public void exportItemsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                   HttpServletResponse response) throws IOException {
+        log.info("Export items by owner with Id={}", userId);
+        itemClient.exportItemsByOwner(userId, response);
     }
 
     @GetMapping("/search")
@@ -67,4 +94,30 @@ public class ItemController {
         log.info("Creating comment {}, to item {} by userId={}", commentDto, itemId, userId);
         return itemClient.createComment(itemId, userId, commentDto);
     }
+
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getAvailability(@PathVariable Long itemId,
+                                                  @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime from,
+                                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                  LocalDateTime to) {
+        if (!from.isBefore(to) || Duration.between(from, to).compareTo(MAX_AVAILABILITY_RANGE) > 0) {
+            throw new IllegalArgumentException("availability range must end after it starts and span at most "
+                    + MAX_AVAILABILITY_RANGE.toDays() + " days");
+        }
+        log.info("Get availability of item {} from {} to {}, by userId={}", itemId, from, to, userId);
+        return itemClient.getAvailability(itemId, userId, from, to);
+    }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable Long itemId,
+                                              @RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                              @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
+                                              @Positive @RequestParam(defaultValue = "10") Integer size,
+                                              @RequestParam(required = false) String cursor) {
+        log.info("Get comments of item {}, by userId={}, from={}, size={}, cursor={}", itemId, userId, from, size,
+                cursor);
+        return itemClient.getComments(itemId, userId, from, size, cursor);
+    }
 }
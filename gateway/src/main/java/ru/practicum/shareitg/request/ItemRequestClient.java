@@ -10,6 +10,7 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareitg.common.client.BaseClient;
 import ru.practicum.shareitg.request.dto.ItemRequestDto;
 
+import java.util.HashMap;
 import java.util.Map;
 
 @Service
@@ -39,11 +40,11 @@ public class ItemRequestClient extends BaseClient {
         return get("/" + requestId, userId);
     }
 
-    public ResponseEntity<Object> getAllRequests(Long userId, Integer from, Integer size) {
-        Map<String, Object> parameters = Map.of(
+    public ResponseEntity<Object> getAllRequests(Long userId, Integer from, Integer size, String cursor) {
+        Map<String, Object> parameters = new HashMap<>(Map.of(
                 "from", from,
                 "size", size
-        );
-        return get("/all?from={from}&size={size}", userId, parameters);
+        ));
+        return get(withCursor("/all?from={from}&size={size}", cursor, parameters), userId, parameters);
     }
 }
@@ -44,8 +44,9 @@ public class ItemRequestController {
     @GetMapping("/all")
     public ResponseEntity<Object> getAllRequests(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
                                                @PositiveOrZero @RequestParam(defaultValue = "0") Integer from,
-                                               @Positive @RequestParam(defaultValue = "10") Integer size) {
+                                               @Positive @RequestParam(defaultValue = "10") Integer size,
+                                               @RequestParam(required = false) String cursor) {
         log.info("Get all item requests, by userId={}", userId);
-        return itemRequestClient.getAllRequests(userId, from, size);
+        return itemRequestClient.getAllRequests(userId, from, size, cursor);
     }
 }
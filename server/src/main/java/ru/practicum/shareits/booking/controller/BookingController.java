@@ -1,15 +1,29 @@
 package ru.practicum.shareits.booking.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareits.booking.enums.State;
+import ru.practicum.shareits.booking.dto.BookingBatchResult;
+import ru.practicum.shareits.booking.dto.BookingDecision;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.service.BookingEventStream;
 import ru.practicum.shareits.booking.service.BookingService;
+import ru.practicum.shareits.common.export.NdjsonWriter;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -18,6 +32,8 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final BookingEventStream bookingEventStream;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public BookingDto addBooking(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
@@ -31,26 +47,75 @@ public class BookingController {
         return bookingService.considerationBooking(userId, bookingId, approved);
     }
 
+    @PatchMapping("/batch")
+    public List<BookingBatchResult> considerationBookings(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                                          @RequestBody List<BookingDecision> decisions) {
+        return bookingService.considerationBookings(userId, decisions);
+    }
+
     @GetMapping("/{bookingId}")
     public BookingDto getBooking(@RequestHeader(value = "X-Sharer-User-Id") Long userId, @PathVariable Long bookingId) {
         return bookingService.getBooking(userId, bookingId);
     }
 
     @GetMapping
-    public List<BookingDto> getAllBookings(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-                                           @RequestParam State state, @RequestParam Integer from,
-                                           @RequestParam Integer size) {
-        Sort sort = Sort.by("start").descending();
-        Pageable pageable = FromSizeRequest.of(from, size, sort);
-        return bookingService.getALLBookings(userId, state, pageable);
+    public ResponseEntity<List<BookingDto>> getAllBookings(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                                           @RequestParam State state, @RequestParam Integer from,
+                                                           @RequestParam Integer size,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(required = false) Long itemId,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                           LocalDateTime rangeStart,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                           LocalDateTime rangeEnd) {
+        List<BookingDto> bookings = bookingService.getALLBookings(userId,
+                new BookingFilter(state, itemId, rangeStart, rangeEnd), toPageable(from, size, cursor));
+        return ResponseEntity.ok()
+                .headers(PageCursor.nextPageHeaders(bookings, size, this::toCursor))
+                .body(bookings);
     }
 
     @GetMapping("/owner")
-    public List<BookingDto> getAllBookingsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-                                                  @RequestParam State state, @RequestParam Integer from,
-                                                  @RequestParam Integer size) {
-        Sort sort = Sort.by("start").descending();
-        Pageable pageable = FromSizeRequest.of(from, size, sort);
-        return bookingService.getAllBookingsByOwner(userId, state, pageable);
+    public ResponseEntity<List<BookingDto>> getAllBookingsByOwner(
+            @RequestHeader(value = "X-Sharer-User-Id") Long userId, @RequestParam State state,
+            @RequestParam Integer from, @RequestParam Integer size, @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Long itemId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime rangeStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+            LocalDateTime rangeEnd) {
+        List<BookingDto> bookings = bookingService.getAllBookingsByOwner(userId,
+                new BookingFilter(state, itemId, rangeStart, rangeEnd), toPageable(from, size, cursor));
+        return ResponseEntity.ok()
+                .headers(PageCursor.nextPageHeaders(bookings, size, this::toCursor))
+                .body(bookings);
+    }
+
+    @GetMapping("/owner/export")
+    public void exportBookingsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                      HttpServletResponse response) throws IOException {
+        NdjsonWriter<BookingDto> writer = new NdjsonWriter<>(objectMapper, response);
+        bookingService.exportBookingsByOwner(userId, writer);
+        writer.flush();
+    }
+
+    @GetMapping("/stream")
+    public SseEmitter streamBookings(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                     @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return bookingEventStream.subscribe(userId, lastEventId);
+    }
+
+    private Pageable toPageable(Integer from, Integer size, String cursor) {
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        if (cursor != null) {
+            return SeekRequest.of(PageCursor.decodeWithPosition(cursor), size, sort);
+        }
+        return FromSizeRequest.of(from, size, sort);
+    }
+
+    private PageCursor toCursor(BookingDto bookingDto) {
+        return PageCursor.of(bookingDto.getStart(), bookingDto.getId());
     }
 }
@@ -0,0 +1,34 @@
+package ru.practicum.shareits.booking.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareits.booking.enums.Status;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class BookingBatchResult {
+
+    private final int index;
+    private final Long bookingId;
+    private final Outcome outcome;
+    private final Status status;
+    private final String error;
+
+    public static BookingBatchResult considered(int index, Long bookingId, Status status) {
+        return new BookingBatchResult(index, bookingId, Outcome.CONSIDERED, status, null);
+    }
+
+    public static BookingBatchResult failed(int index, Long bookingId, String error) {
+        return new BookingBatchResult(index, bookingId, Outcome.FAILED, null, error);
+    }
+
+    public enum Outcome {
+        CONSIDERED,
+        FAILED
+    }
+}
@@ -0,0 +1,15 @@
+package ru.practicum.shareits.booking.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class BookingDecision {
+
+    private Long bookingId;
+    private Boolean approved;
+}
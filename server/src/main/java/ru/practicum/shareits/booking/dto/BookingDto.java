@@ -31,19 +31,19 @@ public class BookingDto {
     private Status status;
 
     public void setBooker(User user) {
-        this.booker = new UserDtoForBooking(
-                user.getId(),
-                user.getEmail(),
-                user.getName()
-        );
+        setBooker(user.getId(), user.getEmail(), user.getName());
+    }
+
+    public void setBooker(Long id, String email, String name) {
+        this.booker = new UserDtoForBooking(id, email, name);
     }
 
     public void setItem(Item item) {
-        this.item = new ItemDtoFofBooking(
-                item.getId(),
-                item.getName(),
-                item.getDescription()
-        );
+        setItem(item.getId(), item.getName(), item.getDescription());
+    }
+
+    public void setItem(Long id, String name, String description) {
+        this.item = new ItemDtoFofBooking(id, name, description);
     }
 
     public void setId(Long id) {
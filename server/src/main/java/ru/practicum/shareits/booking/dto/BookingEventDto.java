@@ -0,0 +1,28 @@
+package ru.practicum.shareits.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Status;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class BookingEventDto {
+
+    private final Long id;
+    private final BookingEventType type;
+    private final Long bookingId;
+    private final Long itemId;
+    private final Long ownerId;
+    private final Long bookerId;
+    private final Status status;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final LocalDateTime created;
+}
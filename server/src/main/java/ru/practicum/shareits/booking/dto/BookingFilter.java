@@ -0,0 +1,29 @@
+package ru.practicum.shareits.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.lang.Nullable;
+import ru.practicum.shareits.booking.enums.State;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class BookingFilter {
+
+    private final State state;
+    @Nullable
+    private final Long itemId;
+    @Nullable
+    private final LocalDateTime rangeStart;
+    @Nullable
+    private final LocalDateTime rangeEnd;
+
+    public static BookingFilter of(State state) {
+        return new BookingFilter(state, null, null, null);
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareits.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import ru.practicum.shareits.booking.enums.Status;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class BookingView {
+
+    private final Long id;
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+    private final Status status;
+    private final Long itemId;
+    private final String itemName;
+    private final String itemDescription;
+    private final Long bookerId;
+    private final String bookerEmail;
+    private final String bookerName;
+}
@@ -0,0 +1,6 @@
+package ru.practicum.shareits.booking.enums;
+
+public enum Role {
+    BOOKER,
+    OWNER
+}
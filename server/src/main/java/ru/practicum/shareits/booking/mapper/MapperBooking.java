@@ -3,8 +3,11 @@ package ru.practicum.shareits.booking.mapper;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
+import ru.practicum.shareits.booking.model.BookingEvent;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+import ru.practicum.shareits.booking.dto.BookingView;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.user.model.User;
 
@@ -25,6 +28,23 @@ public class MapperBooking {
         return bookingDto;
     }
 
+    public BookingDto convertBookingViewToBookingDto(BookingView booking) {
+        BookingDto bookingDto = new BookingDto();
+        bookingDto.setId(booking.getId());
+        bookingDto.setStart(booking.getStart());
+        bookingDto.setEnd(booking.getEnd());
+        bookingDto.setStatus(booking.getStatus());
+        bookingDto.setBooker(booking.getBookerId(), booking.getBookerEmail(), booking.getBookerName());
+        bookingDto.setItem(booking.getItemId(), booking.getItemName(), booking.getItemDescription());
+        return bookingDto;
+    }
+
+    public BookingEventDto convertBookingEventToBookingEventDto(BookingEvent event) {
+        return new BookingEventDto(event.getId(), event.getType(), event.getBookingId(), event.getItemId(),
+                event.getOwnerId(), event.getBookerId(), event.getStatus(), event.getStart(), event.getEnd(),
+                event.getCreated());
+    }
+
     public Booking convertBookingRequestToBooking(BookingDtoRequest bookingDtoRequest, Item item, User booker) {
         Booking booking = new Booking();
         booking.setItem(item);
@@ -40,4 +60,16 @@ public class MapperBooking {
                 .map(this::convertBookingToBookingDto)
                 .collect(Collectors.toList());
     }
+
+    public List<BookingDto> convertAllBookingViewsToBookingsDto(List<BookingView> bookings) {
+        return bookings.stream()
+                .map(this::convertBookingViewToBookingDto)
+                .collect(Collectors.toList());
+    }
+
+    public List<BookingEventDto> convertAllBookingEventsToBookingEventsDto(List<BookingEvent> events) {
+        return events.stream()
+                .map(this::convertBookingEventToBookingEventDto)
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,37 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.booking.storage.BookingRepository;
+
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class BookingArchiver {
+
+    private final BookingRepository bookingRepository;
+    private final int batchSize;
+
+    public BookingArchiver(BookingRepository bookingRepository,
+                           @Value("${shareit.bookings.archive.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.archive.interval:PT1H}")
+    public void archive() {
+        LocalDateTime now = LocalDateTime.now();
+        int archived = 0;
+        int moved;
+        do {
+            moved = bookingRepository.archiveFinishedBookings(now, batchSize);
+            archived += moved;
+        } while (moved == batchSize);
+        if (archived > 0) {
+            log.info("{} finished bookings archived", archived);
+        }
+    }
+}
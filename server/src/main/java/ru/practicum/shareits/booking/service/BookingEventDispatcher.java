@@ -0,0 +1,68 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+import ru.practicum.shareits.booking.mapper.MapperBooking;
+import ru.practicum.shareits.booking.model.BookingEvent;
+import ru.practicum.shareits.booking.storage.BookingEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Component
+@Slf4j
+public class BookingEventDispatcher {
+
+    private final BookingEventRepository bookingEventRepository;
+    private final List<BookingEventSink> sinks;
+    private final MapperBooking mapperBooking;
+    private final int batchSize;
+    private final Duration retention;
+
+    public BookingEventDispatcher(BookingEventRepository bookingEventRepository, List<BookingEventSink> sinks,
+                                  MapperBooking mapperBooking,
+                                  @Value("${shareit.bookings.events.batch-size:100}") int batchSize,
+                                  @Value("${shareit.bookings.events.retention:P1D}") Duration retention) {
+        this.bookingEventRepository = bookingEventRepository;
+        this.sinks = sinks;
+        this.mapperBooking = mapperBooking;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.dispatch-interval:PT1S}")
+    public void dispatch() {
+        int dispatched = 0;
+        int batch;
+        try {
+            do {
+                batch = bookingEventRepository.dispatchPending(batchSize, LocalDateTime.now(), this::publish);
+                dispatched += batch;
+            } while (batch == batchSize);
+        } catch (RuntimeException e) {
+            log.warn("booking events dispatch interrupted after {} events: {}", dispatched, e.getMessage());
+        }
+        if (dispatched > 0) {
+            log.debug("{} booking events dispatched", dispatched);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.events.purge-interval:PT1H}")
+    public void purge() {
+        int purged = bookingEventRepository.deleteDispatchedBefore(LocalDateTime.now().minus(retention));
+        if (purged > 0) {
+            log.info("{} dispatched booking events purged", purged);
+        }
+    }
+
+    private void publish(List<BookingEvent> events) {
+        List<BookingEventDto> eventsDto = mapperBooking.convertAllBookingEventsToBookingEventsDto(events);
+        for (BookingEventSink sink : sinks) {
+            sink.publish(eventsDto);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package ru.practicum.shareits.booking.service;
+
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+// Delivery is at least once: a batch is published inside the transaction that marks it dispatched and is
+// published again when a sink throws or that transaction rolls back, so consumers deduplicate by event id.
+public interface BookingEventSink {
+
+    void publish(List<BookingEventDto> events);
+}
@@ -0,0 +1,343 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+import ru.practicum.shareits.booking.mapper.MapperBooking;
+import ru.practicum.shareits.booking.model.BookingEvent;
+import ru.practicum.shareits.booking.storage.BookingEventRepository;
+import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.user.storage.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Component
+@Slf4j
+public class BookingEventStream {
+
+    private static final Object HEARTBEAT = new Object();
+    private static final Object END = new Object();
+
+    private final Map<Long, Set<Connection>> connections = new ConcurrentHashMap<>();
+    private final Set<Connection> sending = ConcurrentHashMap.newKeySet();
+    private final Map<Long, LocalDateTime> seen = new HashMap<>();
+    private final UserRepository userRepository;
+    private final BookingEventRepository bookingEventRepository;
+    private final MapperBooking mapperBooking;
+    private final int bufferSize;
+    private final Duration timeout;
+    private final Duration overlap;
+    private final Duration sendTimeout;
+    private final int pollBatchSize;
+    private final int senderThreads;
+    private final int maxSenderThreads;
+    private final ThreadPoolExecutor sender;
+    private LocalDateTime watermark = LocalDateTime.now();
+
+    public BookingEventStream(UserRepository userRepository, BookingEventRepository bookingEventRepository,
+                              MapperBooking mapperBooking,
+                              @Value("${shareit.bookings.stream.buffer-size:256}") int bufferSize,
+                              @Value("${shareit.bookings.stream.timeout:PT30M}") Duration timeout,
+                              @Value("${shareit.bookings.stream.overlap:PT30S}") Duration overlap,
+                              @Value("${shareit.bookings.stream.send-timeout:PT10S}") Duration sendTimeout,
+                              @Value("${shareit.bookings.stream.poll-batch-size:500}") int pollBatchSize,
+                              @Value("${shareit.bookings.stream.sender-threads:4}") int senderThreads,
+                              @Value("${shareit.bookings.stream.max-sender-threads:32}") int maxSenderThreads) {
+        this.userRepository = userRepository;
+        this.bookingEventRepository = bookingEventRepository;
+        this.mapperBooking = mapperBooking;
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.overlap = overlap;
+        this.sendTimeout = sendTimeout;
+        this.pollBatchSize = pollBatchSize;
+        this.senderThreads = senderThreads;
+        this.maxSenderThreads = Math.max(senderThreads, maxSenderThreads);
+        CustomizableThreadFactory threadFactory = new CustomizableThreadFactory("booking-stream-");
+        threadFactory.setDaemon(true);
+        this.sender = new ThreadPoolExecutor(senderThreads, this.maxSenderThreads, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+    }
+
+    public SseEmitter subscribe(Long userId, @Nullable String lastEventId) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotExistsException("such user not registered");
+        }
+        PageCursor cursor = lastEventId == null ? null : PageCursor.decodeWithPosition(lastEventId);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Connection connection = new Connection(userId, emitter);
+        emitter.onCompletion(() -> remove(connection));
+        emitter.onError(e -> remove(connection));
+        connections.computeIfAbsent(userId, id -> ConcurrentHashMap.newKeySet()).add(connection);
+        if (cursor != null) {
+            replay(connection, cursor);
+        }
+        connection.start();
+        log.info("booking stream of user with id: {} opened after event: {}", userId,
+                cursor == null ? null : cursor.getId());
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.poll-interval:PT1S}")
+    public synchronized void poll() {
+        if (connections.isEmpty()) {
+            watermark = LocalDateTime.now();
+            seen.clear();
+            return;
+        }
+        try {
+            LocalDateTime dispatched = watermark.minus(overlap);
+            Long eventId = 0L;
+            List<BookingEvent> page;
+            do {
+                page = bookingEventRepository.findDispatchedAfter(dispatched, eventId,
+                        PageRequest.of(0, pollBatchSize));
+                for (BookingEvent event : page) {
+                    if (seen.putIfAbsent(event.getId(), event.getDispatched()) == null) {
+                        deliver(toStreamEvent(event));
+                    }
+                    if (event.getDispatched().isAfter(watermark)) {
+                        watermark = event.getDispatched();
+                    }
+                    dispatched = event.getDispatched();
+                    eventId = event.getId();
+                }
+            } while (page.size() == pollBatchSize);
+        } catch (RuntimeException e) {
+            log.warn("booking stream poll failed: {}", e.getMessage());
+        }
+        LocalDateTime horizon = watermark.minus(overlap);
+        seen.values().removeIf(dispatched -> dispatched.isBefore(horizon));
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        int stalled = 0;
+        for (Connection connection : sending) {
+            if (now - connection.sendStartedAt > sendTimeout.toNanos()) {
+                stalled++;
+                connection.abandon();
+            }
+        }
+        sender.setCorePoolSize(Math.min(maxSenderThreads, senderThreads + stalled));
+        connections.values().forEach(userConnections -> userConnections.forEach(Connection::heartbeat));
+    }
+
+    @PreDestroy
+    public void close() {
+        sender.shutdownNow();
+        connections.values().forEach(userConnections -> userConnections.forEach(connection ->
+                connection.emitter.complete()));
+    }
+
+    private void replay(Connection connection, PageCursor cursor) {
+        List<StreamEvent> events = bookingEventRepository.findDispatchedByUserIdAfter(connection.userId,
+                        cursor.getPosition().minus(overlap), 0L, PageRequest.of(0, bufferSize)).stream()
+                .map(this::toStreamEvent)
+                .filter(event -> !event.id.equals(cursor.getId()) && event.compareTo(cursor) <= 0)
+                .collect(Collectors.toCollection(ArrayList::new));
+        List<BookingEvent> missed = bookingEventRepository.findDispatchedByUserIdAfter(connection.userId,
+                cursor.getPosition(), cursor.getId(), PageRequest.of(0, bufferSize + 1));
+        missed.stream()
+                .limit(bufferSize)
+                .map(this::toStreamEvent)
+                .forEach(events::add);
+        connection.replay(cursor, events, missed.size() > bufferSize);
+    }
+
+    private void deliver(StreamEvent event) {
+        Stream.of(event.dto.getOwnerId(), event.dto.getBookerId())
+                .distinct()
+                .forEach(userId -> connections.getOrDefault(userId, Set.of())
+                        .forEach(connection -> connection.offer(event)));
+    }
+
+    private void remove(Connection connection) {
+        connections.computeIfPresent(connection.userId, (userId, userConnections) -> {
+            userConnections.remove(connection);
+            return userConnections.isEmpty() ? null : userConnections;
+        });
+    }
+
+    private StreamEvent toStreamEvent(BookingEvent event) {
+        return new StreamEvent(event.getId(), event.getDispatched(),
+                mapperBooking.convertBookingEventToBookingEventDto(event));
+    }
+
+    private static final class StreamEvent {
+
+        private final Long id;
+        private final LocalDateTime dispatched;
+        private final BookingEventDto dto;
+
+        private StreamEvent(Long id, LocalDateTime dispatched, BookingEventDto dto) {
+            this.id = id;
+            this.dispatched = dispatched;
+            this.dto = dto;
+        }
+
+        private int compareTo(PageCursor cursor) {
+            int byDispatched = dispatched.compareTo(cursor.getPosition());
+            return byDispatched != 0 ? byDispatched : id.compareTo(cursor.getId());
+        }
+    }
+
+    private final class Connection {
+
+        private final Long userId;
+        private final SseEmitter emitter;
+        private final Queue<Object> replayed = new ConcurrentLinkedQueue<>();
+        private final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final Set<Long> replayedIds = ConcurrentHashMap.newKeySet();
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile boolean started;
+        private volatile long sendStartedAt;
+        private PageCursor lastCursor;
+
+        private Connection(Long userId, SseEmitter emitter) {
+            this.userId = userId;
+            this.emitter = emitter;
+        }
+
+        private void replay(PageCursor cursor, List<StreamEvent> events, boolean overflow) {
+            lastCursor = cursor;
+            for (StreamEvent event : events) {
+                replayedIds.add(event.id);
+                replayed.add(event);
+            }
+            if (overflow) {
+                replayed.add(END);
+            }
+        }
+
+        private void start() {
+            started = true;
+            drain();
+        }
+
+        private void offer(Object item) {
+            if (closed.get()) {
+                return;
+            }
+            if (!queue.offer(item)) {
+                log.warn("booking stream of user with id: {} overflowed, closing it for resume", userId);
+                closed.set(true);
+                remove(this);
+            }
+            drain();
+        }
+
+        private void heartbeat() {
+            if (queue.isEmpty() && replayed.isEmpty()) {
+                offer(HEARTBEAT);
+            }
+        }
+
+        private void abandon() {
+            if (closed.compareAndSet(false, true)) {
+                log.warn("booking stream of user with id: {} stalled on send, closing it", userId);
+                remove(this);
+            }
+        }
+
+        private void drain() {
+            if (!started || (!closed.get() && queue.isEmpty() && replayed.isEmpty())
+                    || !draining.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                sender.execute(() -> {
+                    try {
+                        sendPending();
+                        if (closed.get()) {
+                            emitter.complete();
+                        }
+                    } catch (IOException | IllegalStateException e) {
+                        log.debug("booking stream of user with id: {} closed: {}", userId, e.getMessage());
+                        closed.set(true);
+                        remove(this);
+                        emitter.completeWithError(e);
+                    } finally {
+                        draining.set(false);
+                    }
+                    if (!closed.get()) {
+                        drain();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+            }
+        }
+
+        private void sendPending() throws IOException {
+            while (!closed.get()) {
+                Object item = replayed.poll();
+                boolean live = item == null;
+                if (live) {
+                    item = queue.poll();
+                }
+                if (item == null) {
+                    return;
+                }
+                if (item == END) {
+                    closed.set(true);
+                    remove(this);
+                } else if (item == HEARTBEAT) {
+                    send(SseEmitter.event().comment("heartbeat"));
+                } else if (!live || !replayedIds.contains(((StreamEvent) item).id)) {
+                    send(toSseEvent((StreamEvent) item));
+                }
+            }
+        }
+
+        private SseEmitter.SseEventBuilder toSseEvent(StreamEvent event) {
+            if (lastCursor == null || event.compareTo(lastCursor) > 0) {
+                lastCursor = PageCursor.of(event.dispatched, event.id);
+            }
+            return SseEmitter.event()
+                    .id(lastCursor.encode())
+                    .name(event.dto.getType().name())
+                    .data(event.dto, MediaType.APPLICATION_JSON);
+        }
+
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            sendStartedAt = System.nanoTime();
+            sending.add(this);
+            try {
+                emitter.send(event);
+            } finally {
+                sending.remove(this);
+            }
+        }
+    }
+}
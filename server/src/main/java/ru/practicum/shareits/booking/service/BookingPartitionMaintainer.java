@@ -0,0 +1,42 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.booking.storage.BookingRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+@Component
+@Slf4j
+public class BookingPartitionMaintainer {
+
+    private final BookingRepository bookingRepository;
+    private final int monthsAhead;
+    private final int retentionMonths;
+
+    public BookingPartitionMaintainer(BookingRepository bookingRepository,
+                                      @Value("${shareit.bookings.partitions.months-ahead:3}") int monthsAhead,
+                                      @Value("${shareit.bookings.partitions.retention-months:0}") int retentionMonths) {
+        this.bookingRepository = bookingRepository;
+        this.monthsAhead = monthsAhead;
+        this.retentionMonths = retentionMonths;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.bookings.partitions.maintenance-interval:PT6H}")
+    public void maintain() {
+        YearMonth now = YearMonth.now();
+        int created = bookingRepository.createPartitions(now, monthsAhead);
+        if (created > 0) {
+            log.info("{} booking partitions created", created);
+        }
+        if (retentionMonths > 0) {
+            List<String> detached = bookingRepository.detachPartitionsBefore(now.minusMonths(retentionMonths));
+            if (!detached.isEmpty()) {
+                log.info("booking partitions {} detached", detached);
+            }
+        }
+    }
+}
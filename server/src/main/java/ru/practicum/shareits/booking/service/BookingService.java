@@ -1,11 +1,14 @@
 package ru.practicum.shareits.booking.service;
 
 import org.springframework.data.domain.Pageable;
-import ru.practicum.shareits.booking.enums.State;
+import ru.practicum.shareits.booking.dto.BookingBatchResult;
+import ru.practicum.shareits.booking.dto.BookingDecision;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
 
@@ -13,9 +16,13 @@ public interface BookingService {
 
     BookingDto considerationBooking(Long userId, Long bookingId, boolean approved);
 
+    List<BookingBatchResult> considerationBookings(Long userId, List<BookingDecision> decisions);
+
     BookingDto getBooking(Long userId, Long bookingId);
 
-    List<BookingDto> getALLBookings(Long userId, State state, Pageable pageable);
+    List<BookingDto> getALLBookings(Long userId, BookingFilter filter, Pageable pageable);
+
+    List<BookingDto> getAllBookingsByOwner(Long userId, BookingFilter filter, Pageable pageable);
 
-    List<BookingDto> getAllBookingsByOwner(Long userId, State state, Pageable pageable);
+    void exportBookingsByOwner(Long userId, Consumer<BookingDto> consumer);
 }
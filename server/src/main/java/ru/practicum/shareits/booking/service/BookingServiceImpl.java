@@ -2,23 +2,40 @@ package ru.practicum.shareits.booking.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareits.booking.storage.BookingRepository;
-import ru.practicum.shareits.booking.enums.State;
+import ru.practicum.shareits.booking.enums.Role;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.dto.BookingBatchResult;
+import ru.practicum.shareits.booking.dto.BookingDecision;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.dto.BookingView;
 import ru.practicum.shareits.booking.mapper.MapperBooking;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.common.exceptions.*;
 import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.item.service.ItemAvailabilityCache;
+import ru.practicum.shareits.item.service.ItemResponseCache;
 import ru.practicum.shareits.item.storage.ItemRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 import static ru.practicum.shareits.booking.enums.Status.*;
 
@@ -30,6 +47,8 @@ public class BookingServiceImpl implements BookingService {
     private final UserRepository userRepository;
     private final ItemRepository itemRepository;
     private final BookingRepository bookingRepository;
+    private final ItemResponseCache itemResponseCache;
+    private final ItemAvailabilityCache itemAvailabilityCache;
     private final MapperBooking mapperBooking;
 
     @Override
@@ -45,7 +64,9 @@ public class BookingServiceImpl implements BookingService {
             throw new ItemAccessErrorException("you can't book your own item");
         }
         Booking booking = mapperBooking.convertBookingRequestToBooking(bookingDtoRequest, item, booker);
-        Booking createdBooking = bookingRepository.save(booking);
+        checkOverlap(booking);
+        Booking createdBooking = bookingRepository.saveWithEvent(booking);
+        itemResponseCache.evictOwnerView(item.getId());
         log.info("booking with id: {} created", createdBooking.getId());
         return mapperBooking.convertBookingToBookingDto(createdBooking);
     }
@@ -63,12 +84,100 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingAccessErrorException("booking status already changed");
         }
         if (approved) {
-            booking.setStatus(APPROVED);
-        } else {
-            booking.setStatus(REJECTED);
+            checkOverlap(booking);
         }
+        Status status = approved ? APPROVED : REJECTED;
+        int updated;
+        try {
+            updated = bookingRepository.updateStatusIfCurrent(bookingId, status, WAITING);
+        } catch (DataIntegrityViolationException e) {
+            throw new BookingConflictException("the item is already booked for this period");
+        }
+        if (updated == 0) {
+            throw new BookingAccessErrorException("booking status already changed");
+        }
+        booking.setStatus(status);
+        itemResponseCache.evictOwnerView(booking.getItem().getId());
+        itemAvailabilityCache.evict(booking.getItem().getId());
         log.info("booking with id: {}, considered", bookingId);
-        return mapperBooking.convertBookingToBookingDto(bookingRepository.save(booking));
+        return mapperBooking.convertBookingToBookingDto(booking);
+    }
+
+    @Override
+    public List<BookingBatchResult> considerationBookings(Long userId, List<BookingDecision> decisions) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotExistsException("such user not registered");
+        }
+        Set<Long> bookingIds = decisions.stream()
+                .filter(Objects::nonNull)
+                .map(BookingDecision::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookings = bookingIds.isEmpty()
+                ? Map.of()
+                : bookingRepository.findAllByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+        BookingBatchResult[] results = new BookingBatchResult[decisions.size()];
+        Map<Integer, Booking> accepted = new LinkedHashMap<>();
+        Set<Long> seenIds = new HashSet<>();
+        for (int i = 0; i < decisions.size(); i++) {
+            BookingDecision decision = decisions.get(i);
+            String error = validateDecision(decision, bookings, userId, seenIds);
+            if (error != null) {
+                results[i] = BookingBatchResult.failed(i, decision == null ? null : decision.getBookingId(), error);
+            } else {
+                accepted.put(i, bookings.get(decision.getBookingId()));
+            }
+        }
+        List<Booking> approved = findApprovedForDecisions(accepted, decisions);
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        for (Map.Entry<Integer, Booking> entry : accepted.entrySet()) {
+            Booking booking = entry.getValue();
+            if (decisions.get(entry.getKey()).getApproved()) {
+                Optional<Booking> conflict = approved.stream()
+                        .filter(other -> other.getItem().getId().equals(booking.getItem().getId())
+                                && other.getStart().isBefore(booking.getEnd())
+                                && other.getEnd().isAfter(booking.getStart()))
+                        .findFirst();
+                if (conflict.isPresent()) {
+                    results[entry.getKey()] = BookingBatchResult.failed(entry.getKey(), booking.getId(),
+                            "the item is already booked from " + conflict.get().getStart() + " to "
+                                    + conflict.get().getEnd());
+                    continue;
+                }
+                statuses.put(booking.getId(), APPROVED);
+            } else {
+                statuses.put(booking.getId(), REJECTED);
+            }
+        }
+        Set<Long> updated = statuses.isEmpty()
+                ? Set.of()
+                : bookingRepository.updateStatusesIfCurrent(statuses, WAITING);
+        Set<Long> conflicted = findStillWaiting(statuses.keySet().stream()
+                .filter(bookingId -> !updated.contains(bookingId) && statuses.get(bookingId) == APPROVED)
+                .collect(Collectors.toSet()));
+        Set<Long> itemIds = new HashSet<>();
+        for (Map.Entry<Integer, Booking> entry : accepted.entrySet()) {
+            Booking booking = entry.getValue();
+            if (updated.contains(booking.getId())) {
+                results[entry.getKey()] = BookingBatchResult.considered(entry.getKey(), booking.getId(),
+                        statuses.get(booking.getId()));
+                itemIds.add(booking.getItem().getId());
+            } else if (conflicted.contains(booking.getId())) {
+                results[entry.getKey()] = BookingBatchResult.failed(entry.getKey(), booking.getId(),
+                        "the item is already booked for this period");
+            } else if (results[entry.getKey()] == null) {
+                results[entry.getKey()] = BookingBatchResult.failed(entry.getKey(), booking.getId(),
+                        "booking status already changed");
+            }
+        }
+        for (Long itemId : itemIds) {
+            itemResponseCache.evictOwnerView(itemId);
+            itemAvailabilityCache.evict(itemId);
+        }
+        log.info("{} of {} bookings considered in batch by user with id: {}", updated.size(), decisions.size(),
+                userId);
+        return Arrays.asList(results);
     }
 
     @Override
@@ -76,6 +185,7 @@ public class BookingServiceImpl implements BookingService {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotExistsException("such user not registered"));
         Booking booking = bookingRepository.findById(bookingId)
+                .or(() -> bookingRepository.findArchivedById(bookingId))
                 .orElseThrow(() -> new EntityNotExistsException("such booking not registered"));
         if (!booking.getBooker().equals(user) && !booking.getItem().getUser().equals(user)) {
             throw new ItemAccessErrorException("incorrect user");
@@ -85,68 +195,90 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<BookingDto> getALLBookings(Long userId, State state, Pageable pageable) {
+    public List<BookingDto> getALLBookings(Long userId, BookingFilter filter, Pageable pageable) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotExistsException("such user not registered");
+        }
+        List<BookingView> bookings = bookingRepository.findAllByFilter(userId, Role.BOOKER, filter,
+                LocalDateTime.now(), pageable);
+        log.info("all bookings with filter: {} asked", filter);
+        return mapperBooking.convertAllBookingViewsToBookingsDto(bookings);
+    }
+
+    @Override
+    public List<BookingDto> getAllBookingsByOwner(Long userId, BookingFilter filter, Pageable pageable) {
         if (!userRepository.existsById(userId)) {
             throw new EntityNotExistsException("such user not registered");
         }
-        List<Booking> bookings = new ArrayList<>();
-        switch (state) {
-            case ALL:
-                bookings.addAll(bookingRepository.findAllByBooker_Id(userId, pageable));
-                break;
-            case CURRENT:
-                bookings.addAll(bookingRepository.findAllByBooker_IdAndStartIsBeforeAndEndIsAfter(
-                        userId, LocalDateTime.now(), LocalDateTime.now(), pageable));
-                break;
-            case FUTURE:
-                bookings.addAll(bookingRepository.findAllByBooker_IdAndStartIsAfter(userId, LocalDateTime.now(),
-                        pageable));
-                break;
-            case PAST:
-                bookings.addAll(bookingRepository.findAllByBooker_IdAndEndIsBefore(userId, LocalDateTime.now(),
-                        pageable));
-                break;
-            case WAITING:
-                bookings.addAll(bookingRepository.findAllByBooker_IdAndStatusIs(userId, WAITING, pageable));
-                break;
-            case REJECTED:
-                bookings.addAll(bookingRepository.findAllByBooker_IdAndStatusIs(userId, REJECTED, pageable));
-                break;
-        }
-        log.info("all bookings with state: {} asked", state);
-        return mapperBooking.convertAllBookingsToBookingsDto(bookings);
+        List<BookingView> bookings = bookingRepository.findAllByFilter(userId, Role.OWNER, filter,
+                LocalDateTime.now(), pageable);
+        log.info("all bookings with filter: {} asked", filter);
+        return mapperBooking.convertAllBookingViewsToBookingsDto(bookings);
     }
 
     @Override
-    public List<BookingDto> getAllBookingsByOwner(Long userId, State state, Pageable pageable) {
+    public void exportBookingsByOwner(Long userId, Consumer<BookingDto> consumer) {
         if (!userRepository.existsById(userId)) {
             throw new EntityNotExistsException("such user not registered");
         }
-        List<Booking> bookings = new ArrayList<>();
-        switch (state) {
-            case ALL:
-                bookings.addAll(bookingRepository.findAllByItem_User_Id(userId, pageable));
-                break;
-            case CURRENT:
-                bookings.addAll(bookingRepository.findAllByItem_User_IdAndStartIsBeforeAndEndIsAfter(
-                        userId, LocalDateTime.now(), LocalDateTime.now(), pageable));
-                break;
-            case FUTURE:
-                bookings.addAll(bookingRepository.findAllByItem_User_IdAndStartIsAfter(userId, LocalDateTime.now(),
-                        pageable));
-                break;
-            case PAST:
-                bookings.addAll(bookingRepository.findAllByItem_User_IdAndEndIsBefore(userId, LocalDateTime.now(),
-                        pageable));
-                break;
-            case WAITING:
-                bookings.addAll(bookingRepository.findAllByItem_User_IdAndStatusIs(userId, WAITING, pageable));
-                break;
-            case REJECTED:
-                bookings.addAll(bookingRepository.findAllByItem_User_IdAndStatusIs(userId, REJECTED, pageable));
-                break;
-        }
-        log.info("all bookings with state: {} asked", state);
-        return mapperBooking.convertAllBookingsToBookingsDto(bookings);
+        bookingRepository.exportViewsByOwnerId(userId,
+                booking -> consumer.accept(mapperBooking.convertBookingViewToBookingDto(booking)));
+        log.info("Owner's bookings with id: {} exported", userId);
+    }
+
+    private String validateDecision(BookingDecision decision, Map<Long, Booking> bookings, Long userId,
+                                    Set<Long> seenIds) {
+        if (decision == null || decision.getBookingId() == null || decision.getApproved() == null) {
+            return "booking id and decision must be specified";
+        }
+        Booking booking = bookings.get(decision.getBookingId());
+        if (booking == null) {
+            return "such booking not registered";
+        }
+        if (!booking.getItem().getUser().getId().equals(userId)) {
+            return "incorrect owner";
+        }
+        if (!seenIds.add(booking.getId())) {
+            return "booking is repeated in the batch";
+        }
+        if (!booking.getStatus().equals(WAITING)) {
+            return "booking status already changed";
+        }
+        return null;
+    }
+
+    private Set<Long> findStillWaiting(Set<Long> bookingIds) {
+        if (bookingIds.isEmpty()) {
+            return Set.of();
+        }
+        return bookingRepository.findAllByIdIn(bookingIds).stream()
+                .filter(booking -> booking.getStatus() == WAITING)
+                .map(Booking::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private List<Booking> findApprovedForDecisions(Map<Integer, Booking> accepted, List<BookingDecision> decisions) {
+        List<Booking> approvals = accepted.entrySet().stream()
+                .filter(entry -> decisions.get(entry.getKey()).getApproved())
+                .map(Map.Entry::getValue)
+                .collect(Collectors.toList());
+        if (approvals.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> itemIds = approvals.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        LocalDateTime start = approvals.stream().map(Booking::getStart).min(LocalDateTime::compareTo).orElseThrow();
+        LocalDateTime end = approvals.stream().map(Booking::getEnd).max(LocalDateTime::compareTo).orElseThrow();
+        return bookingRepository.findApprovedInPeriod(itemIds, start, end);
+    }
+
+    private void checkOverlap(Booking booking) {
+        bookingRepository.findApprovedOverlap(booking.getItem().getId(), booking.getStart(), booking.getEnd(),
+                        booking.getId())
+                .ifPresent(conflict -> {
+                    throw new BookingConflictException("the item is already booked from " + conflict.getStart()
+                            + " to " + conflict.getEnd());
+                });
     }
 }
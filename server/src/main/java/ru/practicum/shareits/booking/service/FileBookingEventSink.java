@@ -0,0 +1,44 @@
+package ru.practicum.shareits.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.events.sink", havingValue = "file")
+public class FileBookingEventSink implements BookingEventSink {
+
+    private final ObjectWriter objectWriter;
+    private final Path file;
+
+    public FileBookingEventSink(ObjectMapper objectMapper,
+                                @Value("${shareit.bookings.events.file:booking-events.ndjson}") Path file) {
+        this.objectWriter = objectMapper.writer();
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<BookingEventDto> events) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            for (BookingEventDto event : events) {
+                writer.write(objectWriter.writeValueAsString(event));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+@Component
+@ConditionalOnProperty(name = "shareit.bookings.events.sink", havingValue = "memory", matchIfMissing = true)
+@Slf4j
+public class InMemoryBookingEventSink implements BookingEventSink {
+
+    private final List<Consumer<BookingEventDto>> subscribers = new CopyOnWriteArrayList<>();
+
+    public Runnable subscribe(Consumer<BookingEventDto> subscriber) {
+        subscribers.add(subscriber);
+        return () -> subscribers.remove(subscriber);
+    }
+
+    @Override
+    public void publish(List<BookingEventDto> events) {
+        RuntimeException failure = null;
+        for (BookingEventDto event : events) {
+            log.debug("booking event {} published", event);
+            for (Consumer<BookingEventDto> subscriber : subscribers) {
+                try {
+                    subscriber.accept(event);
+                } catch (RuntimeException e) {
+                    log.warn("booking event {} not delivered to subscriber: {}", event.getId(), e.getMessage());
+                    if (failure == null) {
+                        failure = e;
+                    } else {
+                        failure.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.practicum.shareits.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.booking.model.BookingEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+@Transactional
+public interface BookingEventRepository extends CrudRepository<BookingEvent, Long>, BookingEventRepositoryCustom {
+
+    @Modifying
+    @Query("delete from BookingEvent e where e.dispatched < ?1")
+    int deleteDispatchedBefore(LocalDateTime time);
+
+    @Query("select e from BookingEvent e where e.dispatched > ?1 or (e.dispatched = ?1 and e.id > ?2) " +
+            "order by e.dispatched, e.id")
+    List<BookingEvent> findDispatchedAfter(LocalDateTime dispatched, Long eventId, Pageable pageable);
+
+    @Query("select e from BookingEvent e where (e.ownerId = ?1 or e.bookerId = ?1) " +
+            "and (e.dispatched > ?2 or (e.dispatched = ?2 and e.id > ?3)) order by e.dispatched, e.id")
+    List<BookingEvent> findDispatchedByUserIdAfter(Long userId, LocalDateTime dispatched, Long eventId,
+                                                   Pageable pageable);
+}
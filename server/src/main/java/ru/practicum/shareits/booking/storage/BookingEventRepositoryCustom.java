@@ -0,0 +1,14 @@
+package ru.practicum.shareits.booking.storage;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.booking.model.BookingEvent;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+public interface BookingEventRepositoryCustom {
+
+    @Transactional
+    int dispatchPending(int limit, LocalDateTime now, Consumer<List<BookingEvent>> consumer);
+}
@@ -0,0 +1,44 @@
+package ru.practicum.shareits.booking.storage;
+
+import org.hibernate.LockOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareits.booking.model.BookingEvent;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+@Repository
+public class BookingEventRepositoryCustomImpl implements BookingEventRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final boolean skipLocked;
+
+    public BookingEventRepositoryCustomImpl(EntityManager entityManager,
+                                            @Value("${shareit.bookings.events.skip-locked:true}") boolean skipLocked) {
+        this.entityManager = entityManager;
+        this.skipLocked = skipLocked;
+    }
+
+    @Override
+    public int dispatchPending(int limit, LocalDateTime now, Consumer<List<BookingEvent>> consumer) {
+        TypedQuery<BookingEvent> query = entityManager.createQuery("select e from BookingEvent e " +
+                        "where e.dispatched is null order by e.id", BookingEvent.class)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setMaxResults(limit);
+        if (skipLocked) {
+            query.setHint("javax.persistence.lock.timeout", LockOptions.SKIP_LOCKED);
+        }
+        List<BookingEvent> events = query.getResultList();
+        if (events.isEmpty()) {
+            return 0;
+        }
+        consumer.accept(events);
+        events.forEach(event -> event.setDispatched(now));
+        return events.size();
+    }
+}
@@ -1,45 +1,53 @@
 package ru.practicum.shareits.booking.storage;
 
-import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
+import ru.practicum.shareits.item.dto.TimeInterval;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 @Transactional
-public interface BookingRepository extends CrudRepository<Booking, Long> {
+public interface BookingRepository extends CrudRepository<Booking, Long>, BookingRepositoryCustom {
 
-    List<Booking> findAllByBooker_Id(Long bookerId, Pageable pageable);
+    String BOOKING_VIEW = "select new ru.practicum.shareits.booking.dto.BookingView(" +
+            "b.id, b.start, b.end, b.status, i.id, i.name, i.description, u.id, u.email, u.name) " +
+            "from Booking b join b.item i join b.booker u ";
 
-    List<Booking> findAllByBooker_IdAndStartIsBeforeAndEndIsAfter(Long bookerId, LocalDateTime now,
-                                                                  LocalDateTime sameNow, Pageable pageable);
+    @Override
+    @EntityGraph(attributePaths = {"item.user", "booker"})
+    Optional<Booking> findById(Long bookingId);
 
-    List<Booking> findAllByBooker_IdAndStartIsAfter(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByBooker_IdAndEndIsBefore(Long bookerId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByBooker_IdAndStatusIs(Long bookerId, Enum<Status> status, Pageable pageable);
-
-    List<Booking> findAllByItem_User_Id(Long userId, Pageable pageable);
-
-    List<Booking> findAllByItem_User_IdAndStartIsBeforeAndEndIsAfter(Long userId, LocalDateTime now,
-                                                                     LocalDateTime sameNow, Pageable pageable);
-
-    List<Booking> findAllByItem_User_IdAndStartIsAfter(Long userId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByItem_User_IdAndEndIsBefore(Long userId, LocalDateTime now, Pageable pageable);
-
-    List<Booking> findAllByItem_User_IdAndStatusIs(Long userId, Enum<Status> status, Pageable pageable);
+    @EntityGraph(attributePaths = {"item.user", "booker"})
+    List<Booking> findAllByIdIn(Collection<Long> bookingIds);
 
+    @EntityGraph(attributePaths = {"item.user", "booker"})
     Booking findFirstByItemIdAndStartBeforeOrderByStart(Long itemId, LocalDateTime now, Sort sort);
 
+    @EntityGraph(attributePaths = {"item.user", "booker"})
     Booking findFirstByItemIdAndStartAfterOrderByStart(Long itemId, LocalDateTime now, Sort sort);
 
+    @EntityGraph(attributePaths = {"item.user", "booker"})
+    @Query(value = "select b from Booking b " +
+            "where b.item.id in ?1 " +
+            "and (b.start = (select max(l.start) from Booking l where l.item.id = b.item.id and l.start < ?2) " +
+            "or b.start = (select min(n.start) from Booking n where n.item.id = b.item.id and n.start > ?2)) " +
+            "order by b.id")
+    List<Booking> findLastAndNextBookingsByItemIds(Collection<Long> itemIds, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareits.item.dto.TimeInterval(b.start, b.end) from Booking b " +
+            "where b.item.id = ?1 and b.status = ?2 and b.start < ?4 and b.end > ?3 order by b.start")
+    List<TimeInterval> findIntervalsByItemIdAndStatus(Long itemId, Status status, LocalDateTime from,
+                                                      LocalDateTime to);
+
     Boolean existsByBooker_IdAndEndIsBeforeAndStatusIs(Long bookerId, LocalDateTime now, Enum<Status> status);
 }
@@ -0,0 +1,60 @@
+package ru.practicum.shareits.booking.storage;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.lang.Nullable;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.dto.BookingView;
+import ru.practicum.shareits.booking.enums.Role;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.model.Booking;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+public interface BookingRepositoryCustom {
+
+    @Transactional(readOnly = true)
+    List<BookingView> findAllByFilter(Long userId, Role role, BookingFilter filter, LocalDateTime now,
+                                      Pageable pageable);
+
+    @Transactional(readOnly = true)
+    Optional<Booking> findApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end,
+                                          @Nullable Long excludedBookingId);
+
+    @Transactional(readOnly = true)
+    List<Booking> findApprovedInPeriod(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end);
+
+    @Transactional
+    Booking saveWithEvent(Booking booking);
+
+    @Transactional
+    int updateStatusIfCurrent(Long bookingId, Status status, Status currentStatus);
+
+    @Transactional
+    Set<Long> updateStatusesIfCurrent(Map<Long, Status> statuses, Status currentStatus);
+
+    @Transactional
+    int createPartitions(YearMonth from, int monthsAhead);
+
+    @Transactional
+    List<String> detachPartitionsBefore(YearMonth month);
+
+    @Transactional
+    int archiveFinishedBookings(LocalDateTime now, int limit);
+
+    @Transactional(readOnly = true)
+    Optional<Booking> findArchivedById(Long bookingId);
+
+    @Transactional(readOnly = true)
+    boolean existsArchivedByBookerIdAndStatus(Long bookerId, Status status);
+
+    @Transactional(readOnly = true)
+    void exportViewsByOwnerId(Long userId, Consumer<BookingView> consumer);
+}
@@ -0,0 +1,651 @@
+package ru.practicum.shareits.booking.storage;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.jpa.QueryHints;
+import org.hibernate.query.NativeQuery;
+import org.hibernate.type.LocalDateTimeType;
+import org.hibernate.type.LongType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.dto.BookingView;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Role;
+import ru.practicum.shareits.booking.enums.State;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.model.ArchivedBooking;
+import ru.practicum.shareits.booking.model.Booking;
+import ru.practicum.shareits.booking.model.BookingEvent;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
+import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.item.storage.ItemRepository;
+import ru.practicum.shareits.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Join;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.Savepoint;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+@Repository
+@Slf4j
+public class BookingRepositoryCustomImpl implements BookingRepositoryCustom {
+
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    private static final String PARTITION_PREFIX = "bookings_p";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter PARTITION_BOUND = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Set<State> ARCHIVED_STATES = EnumSet.of(State.ALL, State.PAST, State.REJECTED);
+    private static final Comparator<BookingView> NEWEST_FIRST = Comparator.comparing(BookingView::getStart)
+            .thenComparing(BookingView::getId)
+            .reversed();
+
+    private final EntityManager entityManager;
+    private final ItemRepository itemRepository;
+    private final int exportFetchSize;
+    private final boolean partitioned;
+    private final boolean archived;
+    private final Duration archiveHorizon;
+
+    public BookingRepositoryCustomImpl(EntityManager entityManager,
+                                       ItemRepository itemRepository,
+                                       @Value("${shareit.export.fetch-size:500}") int exportFetchSize,
+                                       @Value("${shareit.bookings.partitions.enabled:false}") boolean partitioned,
+                                       @Value("${shareit.bookings.archive.enabled:false}") boolean archived,
+                                       @Value("${shareit.bookings.archive.horizon:P180D}") Duration archiveHorizon) {
+        this.entityManager = entityManager;
+        this.itemRepository = itemRepository;
+        this.exportFetchSize = exportFetchSize;
+        this.partitioned = partitioned;
+        this.archived = archived;
+        this.archiveHorizon = archiveHorizon;
+    }
+
+    @Override
+    public List<BookingView> findAllByFilter(Long userId, Role role, BookingFilter filter, LocalDateTime now,
+                                             Pageable pageable) {
+        boolean seek = pageable instanceof SeekRequest;
+        int offset = seek ? 0 : (int) pageable.getOffset();
+        List<BookingView> bookings = findViews(Booking.class, userId, role, filter, now, pageable, offset,
+                pageable.getPageSize());
+        if (!archived || !ARCHIVED_STATES.contains(filter.getState())
+                || !goesPastHotSet(bookings, pageable.getPageSize(), now)) {
+            return bookings;
+        }
+        int limit = offset + pageable.getPageSize();
+        if (offset > 0) {
+            bookings = findViews(Booking.class, userId, role, filter, now, pageable, 0, limit);
+        }
+        List<BookingView> merged = new ArrayList<>(bookings);
+        merged.addAll(findViews(ArchivedBooking.class, userId, role, filter, now, pageable, 0, limit));
+        merged.sort(NEWEST_FIRST);
+        return new ArrayList<>(merged.subList(Math.min(offset, merged.size()), Math.min(limit, merged.size())));
+    }
+
+    @Override
+    public Optional<Booking> findApprovedOverlap(Long itemId, LocalDateTime start, LocalDateTime end,
+                                                 Long excludedBookingId) {
+        TypedQuery<Booking> query = entityManager.createQuery("select b from Booking b " +
+                        "join fetch b.item i join fetch i.user join fetch b.booker " +
+                        "where i.id = :itemId and b.status = :status " +
+                        "and b.start < :end and b.end > :start " +
+                        (excludedBookingId == null ? "" : "and b.id <> :excludedBookingId ") +
+                        "order by b.start", Booking.class)
+                .setParameter("itemId", itemId)
+                .setParameter("status", Status.APPROVED)
+                .setParameter("start", start)
+                .setParameter("end", end);
+        if (excludedBookingId != null) {
+            query.setParameter("excludedBookingId", excludedBookingId);
+        }
+        return query.setMaxResults(1)
+                .getResultStream()
+                .findFirst();
+    }
+
+    @Override
+    public List<Booking> findApprovedInPeriod(Collection<Long> itemIds, LocalDateTime start, LocalDateTime end) {
+        return entityManager.createQuery("select b from Booking b " +
+                        "join fetch b.item i join fetch i.user join fetch b.booker " +
+                        "where i.id in :itemIds and b.status = :status and b.start < :end and b.end > :start " +
+                        "order by b.start", Booking.class)
+                .setParameter("itemIds", itemIds)
+                .setParameter("status", Status.APPROVED)
+                .setParameter("start", start)
+                .setParameter("end", end)
+                .getResultList();
+    }
+
+    @Override
+    public Booking saveWithEvent(Booking booking) {
+        entityManager.persist(booking);
+        entityManager.persist(new BookingEvent(null, BookingEventType.CREATED, booking.getId(),
+                booking.getItem().getId(), booking.getItem().getUser().getId(), booking.getBooker().getId(),
+                booking.getStatus(), booking.getStart(), booking.getEnd(), LocalDateTime.now(), null));
+        itemRepository.linkBooking(booking, LocalDateTime.now());
+        return booking;
+    }
+
+    @Override
+    public int updateStatusIfCurrent(Long bookingId, Status status, Status currentStatus) {
+        entityManager.flush();
+        if (status == Status.APPROVED && !findApprovalConflicts(List.of(bookingId), currentStatus).isEmpty()) {
+            throw new DataIntegrityViolationException("the item is already booked for this period");
+        }
+        int updated = entityManager.createQuery("update Booking b set b.status = :status " +
+                        "where b.id = :bookingId and b.status = :currentStatus")
+                .setParameter("status", status)
+                .setParameter("bookingId", bookingId)
+                .setParameter("currentStatus", currentStatus)
+                .executeUpdate();
+        entityManager.clear();
+        if (updated > 0) {
+            recordStatusChanges(List.of(bookingId));
+        }
+        return updated;
+    }
+
+    @Override
+    public Set<Long> updateStatusesIfCurrent(Map<Long, Status> statuses, Status currentStatus) {
+        entityManager.flush();
+        Set<Long> conflicts = findApprovalConflicts(statuses.keySet().stream()
+                .filter(bookingId -> statuses.get(bookingId) == Status.APPROVED)
+                .collect(Collectors.toList()), currentStatus);
+        List<Long> bookingIds = statuses.keySet().stream()
+                .filter(bookingId -> !conflicts.contains(bookingId))
+                .collect(Collectors.toList());
+        if (bookingIds.isEmpty()) {
+            return Set.of();
+        }
+        Set<Long> updated = entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "update bookings set status = ? where booking_id = ? and status = ?")) {
+                Savepoint batchSavepoint = connection.setSavepoint();
+                try {
+                    for (Long bookingId : bookingIds) {
+                        bindStatusUpdate(statement, bookingId, statuses.get(bookingId), currentStatus);
+                        statement.addBatch();
+                    }
+                    int[] counts = statement.executeBatch();
+                    connection.releaseSavepoint(batchSavepoint);
+                    Set<Long> updatedIds = new HashSet<>();
+                    for (int i = 0; i < counts.length; i++) {
+                        if (counts[i] > 0) {
+                            updatedIds.add(bookingIds.get(i));
+                        }
+                    }
+                    return updatedIds;
+                } catch (SQLException e) {
+                    if (!isIntegrityViolation(e)) {
+                        throw e;
+                    }
+                    connection.rollback(batchSavepoint);
+                    statement.clearBatch();
+                }
+                Set<Long> updatedIds = new HashSet<>();
+                for (Long bookingId : bookingIds) {
+                    Savepoint savepoint = connection.setSavepoint();
+                    try {
+                        bindStatusUpdate(statement, bookingId, statuses.get(bookingId), currentStatus);
+                        if (statement.executeUpdate() > 0) {
+                            updatedIds.add(bookingId);
+                        }
+                        connection.releaseSavepoint(savepoint);
+                    } catch (SQLException e) {
+                        if (!isIntegrityViolation(e)) {
+                            throw e;
+                        }
+                        connection.rollback(savepoint);
+                    }
+                }
+                return updatedIds;
+            }
+        });
+        if (!updated.isEmpty()) {
+            recordStatusChanges(updated);
+        }
+        return updated;
+    }
+
+    @Override
+    public int createPartitions(YearMonth from, int monthsAhead) {
+        if (!partitioned) {
+            return 0;
+        }
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            convertToPartitioned(connection);
+            Set<YearMonth> months = new TreeSet<>();
+            for (int i = 0; i <= monthsAhead; i++) {
+                months.add(from.plusMonths(i));
+            }
+            try (Statement statement = connection.createStatement();
+                 ResultSet strayMonths = statement.executeQuery("select distinct " +
+                         "cast(date_trunc('month', start_date) as date) from " + DEFAULT_PARTITION)) {
+                while (strayMonths.next()) {
+                    months.add(YearMonth.from(strayMonths.getDate(1).toLocalDate()));
+                }
+            }
+            int created = 0;
+            for (YearMonth month : months) {
+                if (createPartition(connection, month)) {
+                    created++;
+                }
+            }
+            return created;
+        });
+    }
+
+    @Override
+    public List<String> detachPartitionsBefore(YearMonth month) {
+        if (!partitioned || !archived) {
+            return List.of();
+        }
+        return entityManager.unwrap(Session.class).doReturningWork(connection -> {
+            List<String> detached = new ArrayList<>();
+            for (String partition : findMonthlyPartitions(connection)) {
+                if (YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX)
+                        .isBefore(month) && isFullyArchived(connection, partition)) {
+                    try (Statement statement = connection.createStatement()) {
+                        statement.execute("alter table bookings detach partition " + partition);
+                    }
+                    detached.add(partition);
+                }
+            }
+            return detached;
+        });
+    }
+
+    @Override
+    public int archiveFinishedBookings(LocalDateTime now, int limit) {
+        if (!archived) {
+            return 0;
+        }
+        List<Long> bookingIds = entityManager.createQuery("select b.id from Booking b " +
+                        "where b.end < :horizon and b.status in :statuses and not exists (select i.id from Item i " +
+                        "where i.lastBooking = b or i.nextBooking = b) order by b.end, b.id", Long.class)
+                .setParameter("horizon", now.minus(archiveHorizon))
+                .setParameter("statuses", List.of(Status.APPROVED, Status.REJECTED))
+                .setMaxResults(limit)
+                .getResultList();
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+        entityManager.createNativeQuery("insert into bookings_archive " +
+                        "(booking_id, item_id, booker_id, status, start_date, end_date) " +
+                        "select booking_id, item_id, booker_id, status, start_date, end_date from bookings " +
+                        "where booking_id in (:bookingIds)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(ArchivedBooking.class)
+                .setParameterList("bookingIds", bookingIds)
+                .executeUpdate();
+        return entityManager.createNativeQuery("delete from bookings where booking_id in (:bookingIds)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedEntityClass(Booking.class)
+                .setParameterList("bookingIds", bookingIds)
+                .executeUpdate();
+    }
+
+    @Override
+    public Optional<Booking> findArchivedById(Long bookingId) {
+        if (!archived) {
+            return Optional.empty();
+        }
+        return entityManager.createQuery("select a from ArchivedBooking a " +
+                        "join fetch a.item i join fetch i.user join fetch a.booker where a.id = :bookingId",
+                        ArchivedBooking.class)
+                .setParameter("bookingId", bookingId)
+                .getResultStream()
+                .findFirst()
+                .map(booking -> new Booking(booking.getId(), booking.getItem(), booking.getBooker(),
+                        booking.getStatus(), booking.getStart(), booking.getEnd()));
+    }
+
+    @Override
+    public boolean existsArchivedByBookerIdAndStatus(Long bookerId, Status status) {
+        if (!archived) {
+            return false;
+        }
+        return entityManager.createQuery("select a.id from ArchivedBooking a " +
+                        "where a.booker.id = :bookerId and a.status = :status", Long.class)
+                .setParameter("bookerId", bookerId)
+                .setParameter("status", status)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .isPresent();
+    }
+
+    @Override
+    public void exportViewsByOwnerId(Long userId, Consumer<BookingView> consumer) {
+        try (Stream<BookingView> bookings = entityManager.createQuery(BookingRepository.BOOKING_VIEW +
+                        "where i.user.id = :userId order by b.start desc, b.id desc", BookingView.class)
+                .setParameter("userId", userId)
+                .setHint(QueryHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            bookings.forEach(consumer);
+        }
+        if (!archived) {
+            return;
+        }
+        try (Stream<BookingView> bookings = entityManager.createQuery("select new " +
+                        "ru.practicum.shareits.booking.dto.BookingView(b.id, b.start, b.end, b.status, i.id, i.name, " +
+                        "i.description, u.id, u.email, u.name) from ArchivedBooking b join b.item i join b.booker u " +
+                        "where i.user.id = :userId order by b.start desc, b.id desc", BookingView.class)
+                .setParameter("userId", userId)
+                .setHint(QueryHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            bookings.forEach(consumer);
+        }
+    }
+
+    private static void bindStatusUpdate(PreparedStatement statement, Long bookingId, Status status,
+                                         Status currentStatus) throws SQLException {
+        statement.setString(1, status.name());
+        statement.setLong(2, bookingId);
+        statement.setString(3, currentStatus.name());
+    }
+
+    private static boolean isIntegrityViolation(SQLException e) {
+        for (SQLException next = e; next != null; next = next.getNextException()) {
+            if (next instanceof SQLIntegrityConstraintViolationException
+                    || (next.getSQLState() != null && next.getSQLState().startsWith("23"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void recordStatusChanges(Collection<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> bookings = entityManager.createQuery("select b.id, i.id, i.user.id, b.booker.id, b.status, " +
+                        "b.start, b.end from Booking b join b.item i where b.id in :bookingIds order by b.id",
+                        Object[].class)
+                .setParameter("bookingIds", bookingIds)
+                .getResultList();
+        for (Object[] booking : bookings) {
+            entityManager.persist(new BookingEvent(null, BookingEventType.STATUS_CHANGED, (Long) booking[0],
+                    (Long) booking[1], (Long) booking[2], (Long) booking[3], (Status) booking[4],
+                    (LocalDateTime) booking[5], (LocalDateTime) booking[6], now, null));
+        }
+    }
+
+    private <T> List<BookingView> findViews(Class<T> type, Long userId, Role role, BookingFilter filter,
+                                            LocalDateTime now, Pageable pageable, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<BookingView> query = cb.createQuery(BookingView.class);
+        Root<T> booking = query.from(type);
+        Join<T, Item> item = booking.join("item");
+        Join<T, User> booker = booking.join("booker");
+        query.select(cb.construct(BookingView.class,
+                booking.get("id"), booking.get("start"), booking.get("end"), booking.get("status"),
+                item.get("id"), item.get("name"), item.get("description"),
+                booker.get("id"), booker.get("email"), booker.get("name")));
+
+        List<Predicate> predicates = new ArrayList<>();
+        if (role == Role.OWNER) {
+            predicates.add(cb.equal(item.get("user").get("id"), userId));
+        } else {
+            predicates.add(cb.equal(booker.get("id"), userId));
+        }
+        switch (filter.getState()) {
+            case CURRENT:
+                predicates.add(cb.lessThan(booking.<LocalDateTime>get("start"), now));
+                predicates.add(cb.greaterThan(booking.<LocalDateTime>get("end"), now));
+                break;
+            case FUTURE:
+                predicates.add(cb.greaterThan(booking.<LocalDateTime>get("start"), now));
+                break;
+            case PAST:
+                predicates.add(cb.lessThan(booking.<LocalDateTime>get("start"), now));
+                predicates.add(cb.lessThan(booking.<LocalDateTime>get("end"), now));
+                break;
+            case WAITING:
+                predicates.add(cb.equal(booking.get("status"), Status.WAITING));
+                break;
+            case REJECTED:
+                predicates.add(cb.equal(booking.get("status"), Status.REJECTED));
+                break;
+            default:
+                break;
+        }
+        if (filter.getItemId() != null) {
+            predicates.add(cb.equal(item.get("id"), filter.getItemId()));
+        }
+        if (filter.getRangeStart() != null) {
+            predicates.add(cb.greaterThan(booking.<LocalDateTime>get("end"), filter.getRangeStart()));
+        }
+        if (filter.getRangeEnd() != null) {
+            predicates.add(cb.lessThan(booking.<LocalDateTime>get("start"), filter.getRangeEnd()));
+        }
+        if (pageable instanceof SeekRequest) {
+            PageCursor cursor = ((SeekRequest) pageable).getCursor();
+            predicates.add(cb.or(
+                    cb.lessThan(booking.<LocalDateTime>get("start"), cursor.getPosition()),
+                    cb.and(cb.equal(booking.get("start"), cursor.getPosition()),
+                            cb.lessThan(booking.<Long>get("id"), cursor.getId()))));
+        }
+
+        query.where(predicates.toArray(new Predicate[0]))
+                .orderBy(cb.desc(booking.get("start")), cb.desc(booking.get("id")));
+        return entityManager.createQuery(query)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private boolean goesPastHotSet(List<BookingView> bookings, int pageSize, LocalDateTime now) {
+        return bookings.size() < pageSize
+                || bookings.get(bookings.size() - 1).getStart().isBefore(now.minus(archiveHorizon));
+    }
+
+    private boolean createPartition(Connection connection, YearMonth month) throws SQLException {
+        String partition = PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+        LocalDate start = month.atDay(1);
+        LocalDate end = month.plusMonths(1).atDay(1);
+        try (PreparedStatement exists = connection.prepareStatement("select to_regclass(?) is not null")) {
+            exists.setString(1, partition);
+            try (ResultSet resultSet = exists.executeQuery()) {
+                resultSet.next();
+                if (resultSet.getBoolean(1)) {
+                    return false;
+                }
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("lock table " + DEFAULT_PARTITION + " in access exclusive mode");
+            statement.execute("create table " + partition + " (like bookings including defaults)");
+        }
+        try (PreparedStatement move = connection.prepareStatement("with moved as (delete from " + DEFAULT_PARTITION +
+                " where start_date >= ? and start_date < ? returning *) insert into " + partition +
+                " select * from moved")) {
+            move.setObject(1, start.atStartOfDay());
+            move.setObject(2, end.atStartOfDay());
+            move.executeUpdate();
+        }
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(itemPeriodExclusion(partition));
+            statement.execute("alter table bookings attach partition " + partition + " for values from ('" +
+                    start.format(PARTITION_BOUND) + "') to ('" + end.format(PARTITION_BOUND) + "')");
+        }
+        return true;
+    }
+
+    private void convertToPartitioned(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet resultSet = statement.executeQuery("select c.relkind from pg_class c " +
+                    "where c.oid = to_regclass('bookings')")) {
+                if (resultSet.next() && "p".equals(resultSet.getString(1))) {
+                    return;
+                }
+            }
+            statement.execute("lock table bookings in access exclusive mode");
+            statement.execute("alter table bookings drop constraint if exists ex_bookings_item_period");
+            statement.execute("alter table bookings rename to bookings_unpartitioned");
+            statement.execute("alter index pk_bookings rename to pk_bookings_unpartitioned");
+            statement.execute("alter index if exists idx_bookings_item_period " +
+                    "rename to idx_bookings_unpartitioned_item_period");
+            statement.execute("create table bookings (" +
+                    "booking_id bigint not null, " +
+                    "item_id bigint not null, " +
+                    "booker_id bigint not null, " +
+                    "status varchar(20) not null, " +
+                    "start_date timestamp without time zone not null, " +
+                    "end_date timestamp without time zone not null, " +
+                    "constraint pk_bookings primary key (booking_id, start_date), " +
+                    "constraint fk_bookings_to_items foreign key (item_id) references items (item_id), " +
+                    "constraint fk_bookings_to_users foreign key (booker_id) references users (user_id)" +
+                    ") partition by range (start_date)");
+            statement.execute("create table " + DEFAULT_PARTITION + " partition of bookings default");
+            statement.execute(itemPeriodExclusion(DEFAULT_PARTITION));
+            statement.execute("create index idx_bookings_item_period on bookings (item_id, start_date, end_date)");
+            statement.execute("insert into bookings select * from bookings_unpartitioned");
+            statement.execute("drop table bookings_unpartitioned");
+        }
+        log.info("bookings converted to a table partitioned by month");
+    }
+
+    private static String itemPeriodExclusion(String table) {
+        return "alter table " + table + " add constraint ex_" + table + "_item_period " +
+                "exclude using gist (item_id with =, tsrange(start_date, end_date, '[)') with &&) " +
+                "where (status = 'APPROVED')";
+    }
+
+    private Set<Long> findApprovalConflicts(List<Long> bookingIds, Status currentStatus) {
+        if (bookingIds.isEmpty()) {
+            return Set.of();
+        }
+        entityManager.createNativeQuery("select item_id from items where item_id in " +
+                        "(select item_id from bookings where booking_id in (:bookingIds)) order by item_id for update")
+                .setParameter("bookingIds", bookingIds)
+                .getResultList();
+        Map<Long, ApprovalPeriod> candidates = new HashMap<>();
+        for (ApprovalPeriod period : findPeriods(entityManager.createNativeQuery("select booking_id, item_id, " +
+                        "start_date, end_date from bookings where booking_id in (:bookingIds) and status = :status " +
+                        "order by booking_id for update")
+                .setParameter("bookingIds", bookingIds)
+                .setParameter("status", currentStatus.name()))) {
+            candidates.put(period.bookingId, period);
+        }
+        if (candidates.isEmpty()) {
+            return Set.of();
+        }
+        List<ApprovalPeriod> approved = findPeriods(entityManager.createNativeQuery("select booking_id, item_id, " +
+                        "start_date, end_date from bookings where item_id in (:itemIds) and status = :status " +
+                        "and booking_id not in (:bookingIds) and start_date < :end and end_date > :start")
+                .setParameter("itemIds", candidates.values().stream()
+                        .map(period -> period.itemId)
+                        .collect(Collectors.toSet()))
+                .setParameter("status", Status.APPROVED.name())
+                .setParameter("bookingIds", bookingIds)
+                .setParameter("start", candidates.values().stream()
+                        .map(period -> period.start)
+                        .min(Comparator.naturalOrder())
+                        .orElseThrow())
+                .setParameter("end", candidates.values().stream()
+                        .map(period -> period.end)
+                        .max(Comparator.naturalOrder())
+                        .orElseThrow()));
+        Set<Long> conflicts = new HashSet<>();
+        for (Long bookingId : bookingIds) {
+            ApprovalPeriod candidate = candidates.get(bookingId);
+            if (candidate == null) {
+                continue;
+            }
+            if (approved.stream().anyMatch(candidate::overlaps)) {
+                conflicts.add(bookingId);
+            } else {
+                approved.add(candidate);
+            }
+        }
+        return conflicts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ApprovalPeriod> findPeriods(Query query) {
+        List<Object[]> rows = query.unwrap(NativeQuery.class)
+                .addScalar("booking_id", LongType.INSTANCE)
+                .addScalar("item_id", LongType.INSTANCE)
+                .addScalar("start_date", LocalDateTimeType.INSTANCE)
+                .addScalar("end_date", LocalDateTimeType.INSTANCE)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new ApprovalPeriod((Long) row[0], (Long) row[1], (LocalDateTime) row[2],
+                        (LocalDateTime) row[3]))
+                .collect(Collectors.toCollection(ArrayList::new));
+    }
+
+    private boolean isFullyArchived(Connection connection, String partition) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("lock table " + partition + " in exclusive mode");
+            try (ResultSet resultSet = statement.executeQuery("select not exists (select 1 from " + partition + ")")) {
+                resultSet.next();
+                return resultSet.getBoolean(1);
+            }
+        }
+    }
+
+    private List<String> findMonthlyPartitions(Connection connection) throws SQLException {
+        List<String> partitions = new ArrayList<>();
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("select c.relname from pg_inherits i " +
+                     "join pg_class c on c.oid = i.inhrelid where i.inhparent = to_regclass('bookings') " +
+                     "order by c.relname")) {
+            while (resultSet.next()) {
+                String partition = resultSet.getString(1);
+                if (partition.matches(PARTITION_PREFIX + "\\d{6}")) {
+                    partitions.add(partition);
+                }
+            }
+        }
+        return partitions;
+    }
+
+    @RequiredArgsConstructor
+    private static class ApprovalPeriod {
+
+        private final Long bookingId;
+        private final Long itemId;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+
+        private boolean overlaps(ApprovalPeriod other) {
+            return itemId.equals(other.itemId) && start.isBefore(other.end) && end.isAfter(other.start);
+        }
+    }
+}
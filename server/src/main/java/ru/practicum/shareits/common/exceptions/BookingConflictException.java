@@ -0,0 +1,8 @@
+package ru.practicum.shareits.common.exceptions;
+
+public class BookingConflictException extends RuntimeException {
+
+    public BookingConflictException(String message) {
+        super(message);
+    }
+}
@@ -25,13 +25,21 @@ public class ErrorHandler {
         return new ErrorResponse(e.getMessage());
     }
 
-    @ExceptionHandler({ItemNotAvailableException.class, BookingAccessErrorException.class})
+    @ExceptionHandler({ItemNotAvailableException.class, BookingAccessErrorException.class,
+            InvalidCursorException.class})
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ErrorResponse incorrectEmail(final RuntimeException e) {
         log.error(e.getMessage());
         return new ErrorResponse(e.getMessage());
     }
 
+    @ExceptionHandler({BookingConflictException.class})
+    @ResponseStatus(value = HttpStatus.CONFLICT)
+    public ErrorResponse bookingConflict(final RuntimeException e) {
+        log.error(e.getMessage());
+        return new ErrorResponse(e.getMessage());
+    }
+
     @ExceptionHandler({MethodArgumentTypeMismatchException.class})
     @ResponseStatus(value = HttpStatus.BAD_REQUEST)
     public ErrorResponse incorrectStatus(final MethodArgumentTypeMismatchException e) {
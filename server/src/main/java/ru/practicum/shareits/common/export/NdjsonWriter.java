@@ -0,0 +1,51 @@
+package ru.practicum.shareits.common.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+public class NdjsonWriter<T> implements Consumer<T> {
+
+    public static final String MEDIA_TYPE = "application/x-ndjson";
+
+    private final ObjectMapper objectMapper;
+    private final ObjectWriter objectWriter;
+    private final HttpServletResponse response;
+    private JsonGenerator generator;
+
+    public NdjsonWriter(ObjectMapper objectMapper, HttpServletResponse response) {
+        this.objectMapper = objectMapper;
+        this.objectWriter = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.response = response;
+    }
+
+    @Override
+    public void accept(T value) {
+        try {
+            objectWriter.writeValue(generator(), value);
+            generator.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public void flush() throws IOException {
+        generator().flush();
+    }
+
+    private JsonGenerator generator() throws IOException {
+        if (generator == null) {
+            response.setContentType(MEDIA_TYPE);
+            generator = objectMapper.getFactory().createGenerator(response.getOutputStream());
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(null);
+        }
+        return generator;
+    }
+}
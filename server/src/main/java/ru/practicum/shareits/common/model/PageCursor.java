@@ -0,0 +1,76 @@
+package ru.practicum.shareits.common.model;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.http.HttpHeaders;
+import ru.practicum.shareits.common.exceptions.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+public class PageCursor {
+
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private static final String SEPARATOR = "|";
+
+    private final LocalDateTime position;
+    private final Long id;
+
+    private PageCursor(LocalDateTime position, Long id) {
+        this.position = position;
+        this.id = id;
+    }
+
+    public static PageCursor of(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(LocalDateTime position, Long id) {
+        return new PageCursor(position, id);
+    }
+
+    public String encode() {
+        String raw = (position == null ? "" : position.toString()) + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = raw.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException("invalid cursor");
+            }
+            String position = raw.substring(0, separator);
+            Long id = Long.valueOf(raw.substring(separator + 1));
+            return new PageCursor(position.isEmpty() ? null : LocalDateTime.parse(position), id);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("invalid cursor");
+        }
+    }
+
+    public static PageCursor decodeWithPosition(String token) {
+        PageCursor cursor = decode(token);
+        if (cursor.getPosition() == null) {
+            throw new InvalidCursorException("invalid cursor");
+        }
+        return cursor;
+    }
+
+    public static <T> HttpHeaders nextPageHeaders(List<T> page, int size, Function<T, PageCursor> cursorOf) {
+        HttpHeaders headers = new HttpHeaders();
+        if (!page.isEmpty() && page.size() == size) {
+            headers.set(NEXT_CURSOR_HEADER, cursorOf.apply(page.get(page.size() - 1)).encode());
+        }
+        return headers;
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareits.common.model;
+
+import lombok.NonNull;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+
+public class SeekRequest extends PageRequest {
+
+    private final PageCursor cursor;
+
+    protected SeekRequest(PageCursor cursor, int size, Sort sort) {
+        super(0, size, sort);
+        this.cursor = cursor;
+    }
+
+    public static SeekRequest of(@NonNull PageCursor cursor, int size, @NonNull Sort sort) {
+        return new SeekRequest(cursor, size, sort);
+    }
+
+    public PageCursor getCursor() {
+        return cursor;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SeekRequest && super.equals(obj) && cursor.equals(((SeekRequest) obj).cursor);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * super.hashCode() + cursor.hashCode();
+    }
+}
@@ -1,14 +1,25 @@
 package ru.practicum.shareits.item.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.practicum.shareits.common.export.NdjsonWriter;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.dto.CommentDto;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareits.item.dto.ItemBatchResult;
 import ru.practicum.shareits.item.service.ItemService;
 import ru.practicum.shareits.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -17,6 +28,7 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
     public ItemDto createItem(@RequestBody ItemDto itemDto,
@@ -24,6 +36,12 @@ public class ItemController {
         return itemService.createItem(itemDto, userId);
     }
 
+    @PostMapping("/batch")
+    public List<ItemBatchResult> createItems(@RequestBody List<ItemDto> itemsDto,
+                                             @RequestHeader(value = "X-Sharer-User-Id") Long userId) {
+        return itemService.createItems(itemsDto, userId);
+    }
+
     @PatchMapping("/{itemId}")
     public ItemDto updateItemById(@RequestBody ItemDto itemDto, @PathVariable Long itemId,
                                   @RequestHeader(value = "X-Sharer-User-Id") Long userId) {
@@ -36,12 +54,29 @@ public class ItemController {
     }
 
     @GetMapping
-    public List<ItemDto> getItemsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-                                         @RequestParam(defaultValue = "0") Integer from,
-                                         @RequestParam(defaultValue = "10") Integer size) {
+    public ResponseEntity<List<ItemDto>> getItemsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                                         @RequestParam(defaultValue = "0") Integer from,
+                                                         @RequestParam(defaultValue = "10") Integer size,
+                                                         @RequestParam(required = false) String cursor) {
         Sort sort = Sort.by("id").ascending();
-        Pageable pageable = FromSizeRequest.of(from, size, sort);
-        return itemService.getItemsByOwner(userId, pageable);
+        Pageable pageable;
+        if (cursor != null) {
+            pageable = SeekRequest.of(PageCursor.decode(cursor), size, sort);
+        } else {
+            pageable = FromSizeRequest.of(from, size, sort);
+        }
+        List<ItemDto> items = itemService.getItemsByOwner(userId, pageable);
+        return ResponseEntity.ok()
+                .headers(PageCursor.nextPageHeaders(items, size, itemDto -> PageCursor.of(itemDto.getId())))
+                .body(items);
+    }
+
+    @GetMapping("/export")
+    public void exportItemsByOwner(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                   HttpServletResponse response) throws IOException {
+        NdjsonWriter<ItemDto> writer = new NdjsonWriter<>(objectMapper, response);
+        itemService.exportItemsByOwner(userId, writer);
+        writer.flush();
     }
 
     @GetMapping("/search")
@@ -53,9 +88,37 @@ public class ItemController {
         return itemService.searchItemsByRequest(text, pageable);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ItemAvailabilityDto getAvailability(@PathVariable Long itemId,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime from,
+                                               @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                               LocalDateTime to) {
+        return itemService.getAvailability(itemId, from, to);
+    }
+
     @PostMapping("/{itemId}/comment")
     public CommentDto addComment(@PathVariable Long itemId, @RequestHeader(value = "X-Sharer-User-Id") Long userId,
                                  @RequestBody CommentDto commentDto) {
         return itemService.createComment(itemId, userId, commentDto);
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable Long itemId,
+                                                        @RequestParam(defaultValue = "0") Integer from,
+                                                        @RequestParam(defaultValue = "10") Integer size,
+                                                        @RequestParam(required = false) String cursor) {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        Pageable pageable;
+        if (cursor != null) {
+            pageable = SeekRequest.of(PageCursor.decodeWithPosition(cursor), size, sort);
+        } else {
+            pageable = FromSizeRequest.of(from, size, sort);
+        }
+        List<CommentDto> comments = itemService.getComments(itemId, pageable);
+        return ResponseEntity.ok()
+                .headers(PageCursor.nextPageHeaders(comments, size,
+                        comment -> PageCursor.of(comment.getCreated(), comment.getId())))
+                .body(comments);
+    }
 }
@@ -0,0 +1,21 @@
+package ru.practicum.shareits.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class CommentView {
+
+    private final Long itemId;
+    private final Long id;
+    private final String text;
+    private final String authorName;
+    private final LocalDateTime created;
+}
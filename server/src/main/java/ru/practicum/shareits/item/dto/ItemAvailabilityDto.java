@@ -0,0 +1,22 @@
+package ru.practicum.shareits.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class ItemAvailabilityDto {
+
+    private final Long itemId;
+    private final LocalDateTime from;
+    private final LocalDateTime to;
+    private final List<TimeInterval> busy;
+    private final List<TimeInterval> free;
+}
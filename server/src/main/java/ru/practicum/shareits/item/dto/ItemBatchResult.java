@@ -0,0 +1,32 @@
+package ru.practicum.shareits.item.dto;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class ItemBatchResult {
+
+    private final int index;
+    private final Outcome outcome;
+    private final Long id;
+    private final String error;
+
+    public static ItemBatchResult created(int index, Long id) {
+        return new ItemBatchResult(index, Outcome.CREATED, id, null);
+    }
+
+    public static ItemBatchResult rejected(int index, String error) {
+        return new ItemBatchResult(index, Outcome.REJECTED, null, error);
+    }
+
+    public enum Outcome {
+        CREATED,
+        REJECTED
+    }
+}
@@ -2,7 +2,6 @@ package ru.practicum.shareits.item.dto;
 
 import lombok.*;
 import ru.practicum.shareits.booking.model.Booking;
-import ru.practicum.shareits.item.model.Comment;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
@@ -21,6 +20,7 @@ public class ItemDto {
     private Long requestId;
     private BookingDtoForItem lastBooking;
     private BookingDtoForItem nextBooking;
+    private long commentsCount;
 
     private final List<CommentDtoForItem> comments = new ArrayList<>();
 
@@ -56,12 +56,16 @@ public class ItemDto {
                 nextBooking.getBooker().getId());
     }
 
-    public void setComments(List<Comment> comments) {
-        for (Comment comment : comments) {
+    public void setCommentsCount(long commentsCount) {
+        this.commentsCount = commentsCount;
+    }
+
+    public void setCommentViews(List<CommentView> comments) {
+        for (CommentView comment : comments) {
             this.comments.add(new CommentDtoForItem(
                     comment.getId(),
                     comment.getText(),
-                    comment.getAuthor().getName(),
+                    comment.getAuthorName(),
                     comment.getCreated()));
         }
     }
@@ -0,0 +1,19 @@
+package ru.practicum.shareits.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class ItemView {
+
+    private final Long id;
+    private final String name;
+    private final String description;
+    private final Boolean available;
+    private final Long requestId;
+}
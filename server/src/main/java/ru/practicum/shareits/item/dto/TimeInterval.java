@@ -0,0 +1,18 @@
+package ru.practicum.shareits.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class TimeInterval {
+
+    private final LocalDateTime start;
+    private final LocalDateTime end;
+}
@@ -4,9 +4,12 @@ import org.springframework.stereotype.Service;
 import ru.practicum.shareits.item.model.Comment;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.item.dto.CommentDto;
+import ru.practicum.shareits.item.dto.CommentView;
 import ru.practicum.shareits.item.model.Item;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class MapperComment {
@@ -28,4 +31,19 @@ public class MapperComment {
         commentDto.setCreated(comment.getCreated());
         return commentDto;
     }
+
+    public CommentDto convertCommentViewToCommentDto(CommentView comment) {
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(comment.getId());
+        commentDto.setText(comment.getText());
+        commentDto.setAuthorName(comment.getAuthorName());
+        commentDto.setCreated(comment.getCreated());
+        return commentDto;
+    }
+
+    public List<CommentDto> convertAllCommentViewsToCommentsDto(List<CommentView> comments) {
+        return comments.stream()
+                .map(this::convertCommentViewToCommentDto)
+                .collect(Collectors.toList());
+    }
 }
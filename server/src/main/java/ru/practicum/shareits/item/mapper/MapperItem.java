@@ -5,6 +5,7 @@ import org.springframework.stereotype.Service;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.item.model.Item;
 
 import java.util.List;
@@ -20,7 +21,18 @@ public class MapperItem {
         itemDto.setName(item.getName());
         itemDto.setDescription(item.getDescription());
         itemDto.setAvailable(item.getAvailable());
-        itemDto.setComments(item.getComments());
+        if (item.getRequestId() != null) {
+            itemDto.setRequestId(item.getRequestId());
+        }
+        return itemDto;
+    }
+
+    public ItemDto convertItemViewToItemDto(ItemView item) {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setId(item.getId());
+        itemDto.setName(item.getName());
+        itemDto.setDescription(item.getDescription());
+        itemDto.setAvailable(item.getAvailable());
         if (item.getRequestId() != null) {
             itemDto.setRequestId(item.getRequestId());
         }
@@ -43,7 +55,6 @@ public class MapperItem {
         if (nextBooking != null) {
             itemDto.setNextBooking(nextBooking);
         }
-        itemDto.setComments(item.getComments());
         return itemDto;
     }
 
@@ -62,4 +73,10 @@ public class MapperItem {
                 .map(this::convertItemToItemDto)
                 .collect(Collectors.toList());
     }
+
+    public List<ItemDto> convertAllItemViewsToItemsDto(List<ItemView> items) {
+        return items.stream()
+                .map(this::convertItemViewToItemDto)
+                .collect(Collectors.toList());
+    }
 }
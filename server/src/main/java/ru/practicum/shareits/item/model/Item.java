@@ -1,24 +1,34 @@
 package ru.practicum.shareits.item.model;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
-import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
+import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.user.model.User;
 
 import javax.persistence.*;
 import java.util.ArrayList;
 import java.util.List;
 
-@AllArgsConstructor
 @NoArgsConstructor
 @Data
 @Entity
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "items")
+@BatchSize(size = 50)
 @Table(name = "items")
 public class Item {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     @Column(name = "item_id")
     private Long id;
 
@@ -34,9 +44,33 @@ public class Item {
     private Boolean available;
 
     @OneToMany(mappedBy = "item")
+    @BatchSize(size = 50)
     @JsonManagedReference
     private List<Comment> comments = new ArrayList<>();
 
     @Column(name = "request_id")
     private Long requestId;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "last_booking_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Booking lastBooking;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "next_booking_id")
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private Booking nextBooking;
+
+    public Item(Long id, User user, String name, String description, Boolean available,
+                List<Comment> comments, Long requestId) {
+        this.id = id;
+        this.user = user;
+        this.name = name;
+        this.description = description;
+        this.available = available;
+        this.comments = comments;
+        this.requestId = requestId;
+    }
 }
@@ -0,0 +1,31 @@
+package ru.practicum.shareits.item.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.item.storage.ItemRepository;
+
+import java.time.LocalDateTime;
+
+@Component
+@Slf4j
+public class BookingPointerRoller {
+
+    private final ItemRepository itemRepository;
+    private final int batchSize;
+
+    public BookingPointerRoller(ItemRepository itemRepository,
+                                @Value("${shareit.items.booking-pointers.batch-size:500}") int batchSize) {
+        this.itemRepository = itemRepository;
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.items.booking-pointers.roll-interval:PT1M}")
+    public void rollForward() {
+        int rolled = itemRepository.rollBookingPointers(LocalDateTime.now(), batchSize);
+        if (rolled > 0) {
+            log.info("booking pointers of {} items rolled forward", rolled);
+        }
+    }
+}
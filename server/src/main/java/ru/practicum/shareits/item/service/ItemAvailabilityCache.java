@@ -0,0 +1,71 @@
+package ru.practicum.shareits.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ItemAvailabilityCache {
+
+    private final Cache<Long, Map<Range, ItemAvailabilityDto>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ItemAvailabilityCache(MeterRegistry meterRegistry,
+                                 @Value("${shareit.items.availability-cache.maximum-size:10000}") long maximumSize,
+                                 @Value("${shareit.items.availability-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maximumSize)
+                .weigher((Long itemId, Map<Range, ItemAvailabilityDto> ranges) -> ranges.size())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items.availability");
+    }
+
+    public ItemAvailabilityDto get(Long itemId, LocalDateTime from, LocalDateTime to,
+                                   Supplier<ItemAvailabilityDto> loader) {
+        Range range = new Range(from, to);
+        Map<Range, ItemAvailabilityDto> ranges = cache.getIfPresent(itemId);
+        ItemAvailabilityDto availability = ranges == null ? null : ranges.get(range);
+        if (availability == null) {
+            long loadGeneration = generation.get();
+            ItemAvailabilityDto loaded = loader.get();
+            cache.asMap().compute(itemId, (id, cached) -> {
+                if (generation.get() != loadGeneration) {
+                    return cached;
+                }
+                Map<Range, ItemAvailabilityDto> updated = cached == null ? new HashMap<>() : new HashMap<>(cached);
+                updated.put(range, loaded);
+                return updated;
+            });
+            availability = loaded;
+        }
+        return availability;
+    }
+
+    public void evict(Long itemId) {
+        generation.incrementAndGet();
+        cache.invalidate(itemId);
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Range {
+
+        private final LocalDateTime from;
+        private final LocalDateTime to;
+    }
+}
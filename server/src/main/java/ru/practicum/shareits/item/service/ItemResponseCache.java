@@ -0,0 +1,103 @@
+package ru.practicum.shareits.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ItemResponseCache {
+
+    private final Cache<Key, Entry> cache;
+    private final Duration ttl;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ItemResponseCache(MeterRegistry meterRegistry,
+                             @Value("${shareit.items.response-cache.maximum-size:10000}") long maximumSize,
+                             @Value("${shareit.items.response-cache.ttl:PT5M}") Duration ttl) {
+        this.ttl = ttl;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new EntryExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "items.response");
+    }
+
+    public ItemDto get(Long itemId, boolean owner, Supplier<Entry> loader) {
+        Key key = new Key(itemId, owner);
+        Entry entry = cache.getIfPresent(key);
+        if (entry == null) {
+            long loadGeneration = generation.get();
+            entry = loader.get();
+            if (generation.get() == loadGeneration) {
+                cache.put(key, entry);
+            }
+        }
+        return entry.getItemDto();
+    }
+
+    public void evict(Long itemId) {
+        generation.incrementAndGet();
+        cache.invalidate(new Key(itemId, true));
+        cache.invalidate(new Key(itemId, false));
+    }
+
+    public void evictOwnerView(Long itemId) {
+        generation.incrementAndGet();
+        cache.invalidate(new Key(itemId, true));
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Entry {
+
+        private final ItemDto itemDto;
+        private final LocalDateTime expiresAt;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final Long itemId;
+        private final boolean owner;
+    }
+
+    private class EntryExpiry implements Expiry<Key, Entry> {
+
+        @Override
+        public long expireAfterCreate(Key key, Entry entry, long currentTime) {
+            if (entry.getExpiresAt() == null) {
+                return ttl.toNanos();
+            }
+            Duration untilExpiry = Duration.between(LocalDateTime.now(), entry.getExpiresAt());
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return untilExpiry.compareTo(ttl) < 0 ? untilExpiry.toNanos() : ttl.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(Key key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Key key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package ru.practicum.shareits.item.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+@Component
+public class ItemSearchCache {
+
+    private static final String CACHE_NAME = "items.search";
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Cache<Key, List<Long>> cache;
+    private final AtomicLong generation = new AtomicLong();
+
+    public ItemSearchCache(MeterRegistry meterRegistry,
+                           @Value("${shareit.search.result-cache.maximum-size:1000}") long maximumSize,
+                           @Value("${shareit.search.result-cache.ttl:PT10M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+        Gauge.builder("cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .tag("cache", CACHE_NAME)
+                .register(meterRegistry);
+    }
+
+    public static String normalize(String text) {
+        return WHITESPACE.matcher(text.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+    }
+
+    public List<Long> get(String text, Pageable pageable, Supplier<List<Long>> loader) {
+        Key key = new Key(text, pageable.getOffset(), pageable.getPageSize());
+        List<Long> itemIds = cache.getIfPresent(key);
+        if (itemIds == null) {
+            long loadGeneration = generation.get();
+            itemIds = List.copyOf(loader.get());
+            if (generation.get() == loadGeneration) {
+                cache.put(key, itemIds);
+            }
+        }
+        return itemIds;
+    }
+
+    public void evictMatching(Long itemId, String... values) {
+        generation.incrementAndGet();
+        List<String> normalizedValues = Arrays.stream(values)
+                .filter(Objects::nonNull)
+                .map(ItemSearchCache::normalize)
+                .collect(Collectors.toList());
+        Set<String> texts = cache.asMap().entrySet().stream()
+                .filter(entry -> entry.getValue().contains(itemId))
+                .map(entry -> entry.getKey().text)
+                .collect(Collectors.toSet());
+        cache.asMap().keySet().removeIf(key -> texts.contains(key.text)
+                || normalizedValues.stream().anyMatch(value -> matches(key.text, value)));
+    }
+
+    private boolean matches(String text, String value) {
+        if (value.isEmpty()) {
+            return false;
+        }
+        for (String word : text.split(" ")) {
+            if (value.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class Key {
+
+        private final String text;
+        private final long offset;
+        private final int size;
+    }
+}
@@ -1,22 +1,34 @@
 package ru.practicum.shareits.item.service;
 
 import org.springframework.data.domain.Pageable;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareits.item.dto.ItemBatchResult;
 import ru.practicum.shareits.item.dto.ItemDto;
 import ru.practicum.shareits.item.dto.CommentDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface ItemService {
 
     ItemDto createItem(ItemDto itemDto, Long userId);
 
+    List<ItemBatchResult> createItems(List<ItemDto> itemsDto, Long userId);
+
     ItemDto updateItemById(ItemDto itemDto, Long itemId, Long userId);
 
     ItemDto getItemById(Long itemId, Long userId);
 
     List<ItemDto> getItemsByOwner(Long userId, Pageable pageable);
 
+    void exportItemsByOwner(Long userId, Consumer<ItemDto> consumer);
+
     List<ItemDto> searchItemsByRequest(String text, Pageable pageable);
 
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to);
+
     CommentDto createComment(Long itemId, Long userId, CommentDto commentDto);
+
+    List<CommentDto> getComments(Long itemId, Pageable pageable);
 }
@@ -3,7 +3,6 @@ package ru.practicum.shareits.item.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
@@ -11,13 +10,21 @@ import ru.practicum.shareits.booking.storage.BookingRepository;
 import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
 import ru.practicum.shareits.common.exceptions.ItemAccessErrorException;
 import ru.practicum.shareits.common.exceptions.ItemNotAvailableException;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.mapper.MapperItem;
 import ru.practicum.shareits.item.storage.CommentsRepository;
 import ru.practicum.shareits.item.storage.ItemRepository;
+import ru.practicum.shareits.item.storage.ItemTrigramIndex;
 import ru.practicum.shareits.request.storage.ItemRequestRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 import ru.practicum.shareits.item.dto.CommentDto;
+import ru.practicum.shareits.item.dto.CommentView;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareits.item.dto.ItemBatchResult;
+import ru.practicum.shareits.item.dto.ItemView;
+import ru.practicum.shareits.item.dto.TimeInterval;
 import ru.practicum.shareits.item.mapper.MapperComment;
 import ru.practicum.shareits.item.model.Comment;
 import ru.practicum.shareits.item.dto.ItemDto;
@@ -25,7 +32,16 @@ import ru.practicum.shareits.item.model.Item;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -37,6 +53,10 @@ public class ItemServiceImpl implements ItemService {
     private final BookingRepository bookingRepository;
     private final CommentsRepository commentsRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final ItemTrigramIndex itemTrigramIndex;
+    private final ItemResponseCache itemResponseCache;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemAvailabilityCache itemAvailabilityCache;
     private final MapperItem mapperItem;
     private final MapperComment mapperComment;
 
@@ -49,28 +69,74 @@ public class ItemServiceImpl implements ItemService {
         }
         Item item = mapperItem.convertItemDtoToItem(itemDto, user);
         Item createdItem = itemRepository.save(item);
+        itemTrigramIndex.index(createdItem);
+        itemSearchCache.evictMatching(createdItem.getId(), createdItem.getName(), createdItem.getDescription());
         log.info("Item with id: {} created", item.getId());
         return mapperItem.convertItemToItemDto(createdItem);
     }
 
+    @Override
+    public List<ItemBatchResult> createItems(List<ItemDto> itemsDto, Long userId) {
+        User user = userRepository.findById(userId)
+                .orElseThrow(() -> new EntityNotExistsException("such user not registered"));
+        Set<Long> requestIds = itemsDto.stream()
+                .filter(Objects::nonNull)
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingRequestIds = requestIds.isEmpty()
+                ? Set.of()
+                : itemRequestRepository.findExistingIds(requestIds);
+        ItemBatchResult[] results = new ItemBatchResult[itemsDto.size()];
+        List<Integer> positions = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < itemsDto.size(); i++) {
+            String error = validateBatchItem(itemsDto.get(i), existingRequestIds);
+            if (error != null) {
+                results[i] = ItemBatchResult.rejected(i, error);
+            } else {
+                positions.add(i);
+                items.add(mapperItem.convertItemDtoToItem(itemsDto.get(i), user));
+            }
+        }
+        if (!items.isEmpty()) {
+            List<Long> ids = itemRepository.insertItems(items);
+            for (int i = 0; i < items.size(); i++) {
+                Item item = items.get(i);
+                item.setId(ids.get(i));
+                itemTrigramIndex.index(item);
+                itemSearchCache.evictMatching(item.getId(), item.getName(), item.getDescription());
+                results[positions.get(i)] = ItemBatchResult.created(positions.get(i), item.getId());
+            }
+        }
+        log.info("{} of {} items created in batch by user with id: {}", items.size(), itemsDto.size(), userId);
+        return Arrays.asList(results);
+    }
+
     @Override
     public ItemDto updateItemById(ItemDto itemDto, Long itemId, Long userId) {
-        checkCorrectOwner(itemId, userId);
-        Item updatedItem = itemRepository.updateItemById(itemDto, itemId);
+        Optional<Item> previousItem = itemRepository.findById(itemId);
+        if (itemRepository.updateItemByIdAndUserId(itemDto, itemId, userId) == 0) {
+            throw resolveUpdateFailure(itemId, userId);
+        }
+        Item updatedItem = itemRepository.findById(itemId)
+                .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
+        itemTrigramIndex.index(updatedItem);
+        itemSearchCache.evictMatching(itemId, updatedItem.getName(), updatedItem.getDescription(),
+                previousItem.map(Item::getName).orElse(null), previousItem.map(Item::getDescription).orElse(null));
+        itemResponseCache.evict(itemId);
         log.info("Item with id: {} updated", itemId);
-        return mapperItem.convertItemToItemDto(updatedItem);
+        return attachComments(mapperItem.convertItemToItemDto(updatedItem));
     }
 
     @Override
     public ItemDto getItemById(Long itemId, Long userId) {
-        ItemDto itemDto;
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
-        if (item.getUser().getId().equals(userId)) {
-            itemDto = addBookingInfoToItem(item);
-        } else {
-            itemDto = mapperItem.convertItemToItemDto(item);
-        }
+        boolean owner = item.getUser().getId().equals(userId);
+        ItemDto itemDto = itemResponseCache.get(itemId, owner, () -> owner
+                ? addBookingInfoToItem(itemId)
+                : addCommentsToItem(itemId));
         log.info("Item with id: {} requested", item.getId());
         return itemDto;
     }
@@ -79,13 +145,25 @@ public class ItemServiceImpl implements ItemService {
     public List<ItemDto> getItemsByOwner(Long userId, Pageable pageable) {
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotExistsException("such user not registered"));
-        List<Item> items = itemRepository.findAllByUserId(userId, pageable);
+        List<Item> items;
+        if (pageable instanceof SeekRequest) {
+            items = itemRepository.findAllByUserIdAndIdGreaterThan(userId,
+                    ((SeekRequest) pageable).getCursor().getId(), pageable);
+        } else {
+            items = itemRepository.findAllByUserId(userId, pageable);
+        }
         log.info("Owner's items with id: {} requested", user.getId());
-        List<ItemDto> itemsDto = new ArrayList<>();
-        for (Item item : items) {
-            itemsDto.add(addBookingInfoToItem(item));
+        return addBookingInfoToItems(items);
+    }
+
+    @Override
+    public void exportItemsByOwner(Long userId, Consumer<ItemDto> consumer) {
+        if (!userRepository.existsById(userId)) {
+            throw new EntityNotExistsException("such user not registered");
         }
-        return itemsDto;
+        itemRepository.exportViewsByUserId(userId, items -> attachComments(mapperItem.convertAllItemViewsToItemsDto(items))
+                .forEach(consumer));
+        log.info("Owner's items with id: {} exported", userId);
     }
 
     @Override
@@ -93,10 +171,50 @@ public class ItemServiceImpl implements ItemService {
         if (request.isBlank()) {
             return new ArrayList<>();
         }
-        List<Item> items = itemRepository
-                .findItemsByRequest(request, pageable);
+        String text = ItemSearchCache.normalize(request);
+        List<ItemView> loaded = new ArrayList<>();
+        List<Long> itemIds = itemSearchCache.get(text, pageable, () -> {
+            loaded.addAll(findItemsByText(text, pageable));
+            return loaded.stream()
+                    .map(ItemView::getId)
+                    .collect(Collectors.toList());
+        });
+        List<ItemView> items = loaded.isEmpty() ? findViewsInOrder(itemIds) : loaded;
         log.info("Search for items by \"{}\" requested", request);
-        return mapperItem.convertAllItemsToItemsDto(items);
+        return attachComments(mapperItem.convertAllItemViewsToItemsDto(items));
+    }
+
+    @Override
+    public List<CommentDto> getComments(Long itemId, Pageable pageable) {
+        if (!itemRepository.existsById(itemId)) {
+            throw new EntityNotExistsException("such item not registered");
+        }
+        List<CommentView> comments;
+        if (pageable instanceof SeekRequest) {
+            PageCursor cursor = ((SeekRequest) pageable).getCursor();
+            comments = commentsRepository.findViewsByItemIdBefore(itemId, cursor.getPosition(), cursor.getId(),
+                    pageable);
+        } else {
+            comments = commentsRepository.findViewsByItemId(itemId, pageable);
+        }
+        log.info("Comments of item with id: {} requested", itemId);
+        return mapperComment.convertAllCommentViewsToCommentsDto(comments);
+    }
+
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to) {
+        if (!from.isBefore(to)) {
+            throw new ItemNotAvailableException("availability range must end after it starts");
+        }
+        if (!itemRepository.existsById(itemId)) {
+            throw new EntityNotExistsException("such item not registered");
+        }
+        log.info("Availability of item with id: {} from {} to {} requested", itemId, from, to);
+        return itemAvailabilityCache.get(itemId, from, to, () -> {
+            List<TimeInterval> bookings = bookingRepository.findIntervalsByItemIdAndStatus(itemId, Status.APPROVED,
+                    from, to);
+            return mergeIntervals(itemId, from, to, bookings);
+        });
     }
 
     @Override
@@ -105,33 +223,185 @@ public class ItemServiceImpl implements ItemService {
                 .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new EntityNotExistsException("such user not registered"));
-        if (!bookingRepository.existsByBooker_IdAndEndIsBeforeAndStatusIs(userId, LocalDateTime.now(), Status.APPROVED)) {
+        if (!bookingRepository.existsByBooker_IdAndEndIsBeforeAndStatusIs(userId, LocalDateTime.now(), Status.APPROVED)
+                && !bookingRepository.existsArchivedByBookerIdAndStatus(userId, Status.APPROVED)) {
             throw new ItemNotAvailableException("user have never booked this item");
         }
         Comment comment = mapperComment.convertCommentDtoToComment(commentDto, item, user);
         Comment savedComment = commentsRepository.save(comment);
+        itemResponseCache.evict(itemId);
         log.info("comment with id: {} for item with id: {} created", savedComment.getId(), itemId);
         return mapperComment.convertCommentToCommentDto(savedComment);
     }
 
-    private void checkCorrectOwner(Long itemId, Long userId) {
+    private List<ItemView> findItemsByText(String text, Pageable pageable) {
+        if (itemTrigramIndex.isEnabled()) {
+            return findViewsInOrder(itemTrigramIndex.search(text, pageable.getOffset(), pageable.getPageSize()));
+        }
+        return itemRepository.findItemsByRequest(text, pageable);
+    }
+
+    private List<ItemView> findViewsInOrder(List<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, ItemView> items = itemRepository.findViewsByIdIn(itemIds).stream()
+                .collect(Collectors.toMap(ItemView::getId, Function.identity()));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private String validateBatchItem(ItemDto itemDto, Set<Long> existingRequestIds) {
+        if (itemDto == null) {
+            return "item must not be null";
+        }
+        if (itemDto.getName() == null || itemDto.getName().isBlank()) {
+            return "name must not be blank";
+        }
+        if (itemDto.getDescription() == null || itemDto.getDescription().isBlank()) {
+            return "description must not be blank";
+        }
+        if (itemDto.getAvailable() == null) {
+            return "available must not be null";
+        }
+        if (itemDto.getRequestId() != null && !existingRequestIds.contains(itemDto.getRequestId())) {
+            return "such request not registered";
+        }
+        return null;
+    }
+
+    private RuntimeException resolveUpdateFailure(Long itemId, Long userId) {
+        if (!itemRepository.existsById(itemId)) {
+            return new EntityNotExistsException("such item not registered");
+        }
+        if (!userRepository.existsById(userId)) {
+            return new EntityNotExistsException("such user not registered");
+        }
+        return new ItemAccessErrorException("incorrect owner");
+    }
+
+    private ItemResponseCache.Entry addCommentsToItem(Long itemId) {
         Item item = itemRepository.findById(itemId)
                 .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
-        User user = userRepository.findById(userId)
-                .orElseThrow(() -> new EntityNotExistsException("such user not registered"));
-        if (!item.getUser().equals(user)) {
-            throw new ItemAccessErrorException("incorrect owner");
+        return new ItemResponseCache.Entry(attachComments(mapperItem.convertItemToItemDto(item)), null);
+    }
+
+    private ItemResponseCache.Entry addBookingInfoToItem(Long itemId) {
+        Item item = itemRepository.findWithBookingPointersById(itemId)
+                .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
+        LocalDateTime now = LocalDateTime.now();
+        Booking lastBooking = item.getLastBooking();
+        Booking nextBooking = item.getNextBooking();
+        if (hasStarted(nextBooking, now)) {
+            Map<Long, Booking> lastBookings = new HashMap<>();
+            Map<Long, Booking> nextBookings = new HashMap<>();
+            findLastAndNextBookings(List.of(itemId), now, lastBookings, nextBookings);
+            lastBooking = lastBookings.get(itemId);
+            nextBooking = nextBookings.get(itemId);
         }
+        ItemDto itemDto = mapperItem.convertItemToItemDtoForOwner(item, lastBooking, nextBooking);
+        return new ItemResponseCache.Entry(attachComments(itemDto), nextBooking == null ? null : nextBooking.getStart());
     }
 
-    private ItemDto addBookingInfoToItem(Item item) {
-        Sort sortLast = Sort.by("start").descending();
+    private List<ItemDto> addBookingInfoToItems(List<Item> items) {
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
         LocalDateTime now = LocalDateTime.now();
-        Booking lastBooking = bookingRepository.findFirstByItemIdAndStartBeforeOrderByStart(item.getId(),
-                now, sortLast);
-        Sort sortNext = Sort.by("start").ascending();
-        Booking nextBooking = bookingRepository.findFirstByItemIdAndStartAfterOrderByStart(item.getId(),
-                now, sortNext);
-        return mapperItem.convertItemToItemDtoForOwner(item, lastBooking, nextBooking);
+        Map<Long, Booking> lastBookings = new HashMap<>();
+        Map<Long, Booking> nextBookings = new HashMap<>();
+        List<Long> staleItemIds = new ArrayList<>();
+        for (Item item : items) {
+            if (hasStarted(item.getNextBooking(), now)) {
+                staleItemIds.add(item.getId());
+            } else {
+                lastBookings.put(item.getId(), item.getLastBooking());
+                nextBookings.put(item.getId(), item.getNextBooking());
+            }
+        }
+        if (!staleItemIds.isEmpty()) {
+            findLastAndNextBookings(staleItemIds, now, lastBookings, nextBookings);
+        }
+        List<ItemDto> itemsDto = new ArrayList<>();
+        for (Item item : items) {
+            itemsDto.add(mapperItem.convertItemToItemDtoForOwner(item,
+                    lastBookings.get(item.getId()), nextBookings.get(item.getId())));
+        }
+        return attachComments(itemsDto);
+    }
+
+    private void findLastAndNextBookings(List<Long> itemIds, LocalDateTime now, Map<Long, Booking> lastBookings,
+                                         Map<Long, Booking> nextBookings) {
+        for (Booking booking : bookingRepository.findLastAndNextBookingsByItemIds(itemIds, now)) {
+            if (booking.getStart().isBefore(now)) {
+                lastBookings.putIfAbsent(booking.getItem().getId(), booking);
+            } else {
+                nextBookings.putIfAbsent(booking.getItem().getId(), booking);
+            }
+        }
+    }
+
+    private ItemAvailabilityDto mergeIntervals(Long itemId, LocalDateTime from, LocalDateTime to,
+                                               List<TimeInterval> bookings) {
+        List<TimeInterval> busy = new ArrayList<>();
+        List<TimeInterval> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+        LocalDateTime busyStart = null;
+        LocalDateTime busyEnd = null;
+        for (TimeInterval booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(from) ? from : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(to) ? to : booking.getEnd();
+            if (busyEnd != null && !start.isAfter(busyEnd)) {
+                if (end.isAfter(busyEnd)) {
+                    busyEnd = end;
+                }
+                continue;
+            }
+            if (busyEnd != null) {
+                busy.add(new TimeInterval(busyStart, busyEnd));
+                freeFrom = busyEnd;
+            }
+            if (start.isAfter(freeFrom)) {
+                free.add(new TimeInterval(freeFrom, start));
+            }
+            busyStart = start;
+            busyEnd = end;
+        }
+        if (busyEnd != null) {
+            busy.add(new TimeInterval(busyStart, busyEnd));
+            freeFrom = busyEnd;
+        }
+        if (to.isAfter(freeFrom)) {
+            free.add(new TimeInterval(freeFrom, to));
+        }
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
+    }
+
+    private ItemDto attachComments(ItemDto itemDto) {
+        attachComments(List.of(itemDto));
+        return itemDto;
+    }
+
+    private List<ItemDto> attachComments(List<ItemDto> itemsDto) {
+        if (itemsDto.isEmpty()) {
+            return itemsDto;
+        }
+        List<Long> itemIds = itemsDto.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+        Map<Long, List<CommentView>> latestComments = commentsRepository.findLatestViewsByItemIdIn(itemIds).stream()
+                .collect(Collectors.groupingBy(CommentView::getItemId));
+        Map<Long, Long> commentsCounts = commentsRepository.countByItemIdIn(itemIds);
+        for (ItemDto itemDto : itemsDto) {
+            itemDto.setCommentViews(latestComments.getOrDefault(itemDto.getId(), List.of()));
+            itemDto.setCommentsCount(commentsCounts.getOrDefault(itemDto.getId(), 0L));
+        }
+        return itemsDto;
+    }
+
+    private boolean hasStarted(Booking booking, LocalDateTime now) {
+        return booking != null && !booking.getStart().isAfter(now);
     }
 }
@@ -1,10 +1,27 @@
 package ru.practicum.shareits.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.item.dto.CommentView;
 import ru.practicum.shareits.item.model.Comment;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Repository
-public interface CommentsRepository extends JpaRepository<Comment, Long> {
+public interface CommentsRepository extends JpaRepository<Comment, Long>, CommentsRepositoryCustom {
+
+    String COMMENT_VIEW = "select new ru.practicum.shareits.item.dto.CommentView(" +
+            "c.item.id, c.id, c.text, a.name, c.created) from Comment c join c.author a ";
+
+    @Transactional(readOnly = true)
+    @Query(COMMENT_VIEW + "where c.item.id = ?1")
+    List<CommentView> findViewsByItemId(Long itemId, Pageable pageable);
 
+    @Transactional(readOnly = true)
+    @Query(COMMENT_VIEW + "where c.item.id = ?1 and (c.created < ?2 or (c.created = ?2 and c.id < ?3))")
+    List<CommentView> findViewsByItemIdBefore(Long itemId, LocalDateTime created, Long id, Pageable pageable);
 }
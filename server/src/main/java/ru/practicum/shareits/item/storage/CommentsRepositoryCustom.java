@@ -0,0 +1,17 @@
+package ru.practicum.shareits.item.storage;
+
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.item.dto.CommentView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+public interface CommentsRepositoryCustom {
+
+    @Transactional(readOnly = true)
+    List<CommentView> findLatestViewsByItemIdIn(Collection<Long> itemIds);
+
+    @Transactional(readOnly = true)
+    Map<Long, Long> countByItemIdIn(Collection<Long> itemIds);
+}
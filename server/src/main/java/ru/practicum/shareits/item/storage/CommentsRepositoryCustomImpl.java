@@ -0,0 +1,59 @@
+package ru.practicum.shareits.item.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareits.item.dto.CommentView;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+@Repository
+public class CommentsRepositoryCustomImpl implements CommentsRepositoryCustom {
+
+    private final EntityManager entityManager;
+    private final int previewSize;
+
+    public CommentsRepositoryCustomImpl(EntityManager entityManager,
+                                        @Value("${shareit.items.comments.preview-size:10}") int previewSize) {
+        this.entityManager = entityManager;
+        this.previewSize = previewSize;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<CommentView> findLatestViewsByItemIdIn(Collection<Long> itemIds) {
+        List<Object[]> rows = entityManager.createNativeQuery("SELECT r.item_id, r.comment_id, r.comment_text, " +
+                        "u.name, r.created " +
+                        "FROM (SELECT c.item_id, c.comment_id, c.comment_text, c.author_id, c.created, " +
+                        "ROW_NUMBER() OVER (PARTITION BY c.item_id " +
+                        "ORDER BY c.created DESC, c.comment_id DESC) AS position " +
+                        "FROM comments c WHERE c.item_id IN (:itemIds)) r " +
+                        "JOIN users u ON u.user_id = r.author_id " +
+                        "WHERE r.position <= :previewSize " +
+                        "ORDER BY r.item_id, r.created DESC, r.comment_id DESC")
+                .setParameter("itemIds", itemIds)
+                .setParameter("previewSize", previewSize)
+                .getResultList();
+        return rows.stream()
+                .map(row -> new CommentView(
+                        ((Number) row[0]).longValue(),
+                        ((Number) row[1]).longValue(),
+                        (String) row[2],
+                        (String) row[3],
+                        ((Timestamp) row[4]).toLocalDateTime()))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Map<Long, Long> countByItemIdIn(Collection<Long> itemIds) {
+        return entityManager.createQuery("select c.item.id, count(c) from Comment c " +
+                        "where c.item.id in :itemIds group by c.item.id", Object[].class)
+                .setParameter("itemIds", itemIds)
+                .getResultStream()
+                .collect(Collectors.toMap(row -> (Long) row[0], row -> (Long) row[1]));
+    }
+}
@@ -1,25 +1,46 @@
 package ru.practicum.shareits.item.storage;
 
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.item.model.Item;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long>, ItemRepositoryCustom {
 
+    @Override
+    boolean existsById(Long itemId);
 
     @Transactional
+    @EntityGraph(attributePaths = {"lastBooking.booker", "nextBooking.booker"})
     List<Item> findAllByUserId(Long userId, Pageable pageable);
 
     @Transactional
-    @Query(value = "select i from Item i " +
-            "where upper(i.name) like upper(concat('%', ?1, '%')) " +
-            "or upper(i.description) like upper(concat('%', ?1, '%')) " +
-            "and i.available = true")
-    List<Item> findItemsByRequest(String request, Pageable pageable);
+    @EntityGraph(attributePaths = {"lastBooking.booker", "nextBooking.booker"})
+    List<Item> findAllByUserIdAndIdGreaterThan(Long userId, Long id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = {"lastBooking.booker", "nextBooking.booker"})
+    @Query("select i from Item i where i.id = ?1")
+    Optional<Item> findWithBookingPointersById(Long itemId);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.practicum.shareits.item.dto.ItemView(" +
+            "i.id, i.name, i.description, i.available, i.requestId) " +
+            "from Item i where i.id in ?1")
+    List<ItemView> findViewsByIdIn(Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.practicum.shareits.item.dto.ItemView(" +
+            "i.id, i.name, i.description, i.available, i.requestId) " +
+            "from Item i where i.requestId in ?1 order by i.id")
+    List<ItemView> findViewsByRequestIdIn(Collection<Long> requestIds);
 }
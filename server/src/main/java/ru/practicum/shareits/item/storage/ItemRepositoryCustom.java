@@ -1,12 +1,36 @@
 package ru.practicum.shareits.item.storage;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.item.model.Item;
 
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
 public interface ItemRepositoryCustom {
 
+    @Transactional(readOnly = true)
+    boolean existsById(Long itemId);
+
     @Transactional
-    Item updateItemById(ItemDto itemDto, Long itemId);
+    int updateItemByIdAndUserId(ItemDto itemDto, Long itemId, Long userId);
+
+    @Transactional(readOnly = true)
+    List<ItemView> findItemsByRequest(String request, Pageable pageable);
 
+    @Transactional(readOnly = true)
+    void exportViewsByUserId(Long userId, Consumer<List<ItemView>> consumer);
+
+    @Transactional
+    List<Long> insertItems(List<Item> items);
+
+    @Transactional
+    void linkBooking(Booking booking, LocalDateTime now);
+
+    @Transactional
+    int rollBookingPointers(LocalDateTime now, int limit);
 }
@@ -1,24 +1,60 @@
 package ru.practicum.shareits.item.storage;
 
-import org.springframework.context.annotation.Lazy;
+import org.hibernate.jpa.QueryHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
-import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
+import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.item.model.Item;
 
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.Query;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
 @Repository
 public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
 
-    private final ItemRepository itemRepository;
+    private final EntityManager entityManager;
+    private final boolean fullTextSearch;
+    private final int jdbcBatchSize;
+    private final int exportFetchSize;
 
-    public ItemRepositoryCustomImpl(@Lazy ItemRepository itemRepository) {
-        this.itemRepository = itemRepository;
+    public ItemRepositoryCustomImpl(EntityManager entityManager,
+                                    @Value("${shareit.search.full-text:false}") boolean fullTextSearch,
+                                    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int jdbcBatchSize,
+                                    @Value("${shareit.export.fetch-size:500}") int exportFetchSize) {
+        this.entityManager = entityManager;
+        this.fullTextSearch = fullTextSearch;
+        this.jdbcBatchSize = jdbcBatchSize;
+        this.exportFetchSize = exportFetchSize;
     }
 
     @Override
-    public Item updateItemById(ItemDto itemDto, Long itemId) {
-        Item item = itemRepository.findById(itemId)
-                .orElseThrow(() -> new EntityNotExistsException("such item not registered"));
+    public boolean existsById(Long itemId) {
+        return entityManager.find(Item.class, itemId) != null;
+    }
+
+    @Override
+    public int updateItemByIdAndUserId(ItemDto itemDto, Long itemId, Long userId) {
+        entityManager.flush();
+        Item item = entityManager.find(Item.class, itemId);
+        if (item == null) {
+            return 0;
+        }
+        entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+        if (!item.getUser().getId().equals(userId)) {
+            return 0;
+        }
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -28,6 +64,149 @@ public class ItemRepositoryCustomImpl implements ItemRepositoryCustom {
         if (itemDto.getAvailable() != null) {
             item.setAvailable(itemDto.getAvailable());
         }
-        return itemRepository.save(item);
+        return 1;
+    }
+
+    @Override
+    public void exportViewsByUserId(Long userId, Consumer<List<ItemView>> consumer) {
+        try (Stream<ItemView> items = entityManager.createQuery("select new ru.practicum.shareits.item.dto.ItemView(" +
+                        "i.id, i.name, i.description, i.available, i.requestId) " +
+                        "from Item i where i.user.id = :userId order by i.id", ItemView.class)
+                .setParameter("userId", userId)
+                .setHint(QueryHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(QueryHints.HINT_READONLY, true)
+                .getResultStream()) {
+            List<ItemView> page = new ArrayList<>(exportFetchSize);
+            Iterator<ItemView> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                page.add(iterator.next());
+                if (page.size() == exportFetchSize) {
+                    consumer.accept(page);
+                    page = new ArrayList<>(exportFetchSize);
+                }
+            }
+            if (!page.isEmpty()) {
+                consumer.accept(page);
+            }
+        }
+    }
+
+    @Override
+    public List<Long> insertItems(List<Item> items) {
+        entityManager.flush();
+        List<Long> ids = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Item item = items.get(i);
+            entityManager.persist(item);
+            ids.add(item.getId());
+            if ((i + 1) % jdbcBatchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return ids;
+    }
+
+    @Override
+    public void linkBooking(Booking booking, LocalDateTime now) {
+        entityManager.flush();
+        Item item = entityManager.find(Item.class, booking.getItem().getId());
+        entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+        Booking reference = entityManager.getReference(Booking.class, booking.getId());
+        if (booking.getStart().isAfter(now)) {
+            if (item.getNextBooking() == null || booking.getStart().isBefore(item.getNextBooking().getStart())) {
+                item.setNextBooking(reference);
+            }
+        } else if (booking.getStart().isBefore(now)) {
+            if (item.getLastBooking() == null || booking.getStart().isAfter(item.getLastBooking().getStart())) {
+                item.setLastBooking(reference);
+            }
+        }
+    }
+
+    @Override
+    public int rollBookingPointers(LocalDateTime now, int limit) {
+        List<Item> items = entityManager.createQuery("select i from Item i join i.nextBooking n " +
+                        "where n.start <= :now order by i.id", Item.class)
+                .setParameter("now", now)
+                .setMaxResults(limit)
+                .getResultList();
+        for (Item item : items) {
+            entityManager.refresh(item, LockModeType.PESSIMISTIC_WRITE);
+            item.setLastBooking(findNearestBooking(item.getId(),
+                    "b.start < :now order by b.start desc, b.id desc", now));
+            item.setNextBooking(findNearestBooking(item.getId(),
+                    "b.start > :now order by b.start, b.id", now));
+        }
+        return items.size();
+    }
+
+    @Override
+    public List<ItemView> findItemsByRequest(String request, Pageable pageable) {
+        if (fullTextSearch) {
+            return findItemsByFullText(request, pageable);
+        }
+        return findItemsBySubstring(request, pageable);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<ItemView> findItemsByFullText(String request, Pageable pageable) {
+        String rankQuery = Arrays.stream(request.toLowerCase().split("[^\\p{L}\\p{N}]+"))
+                .filter(word -> !word.isEmpty())
+                .map(word -> word + ":*")
+                .collect(Collectors.joining(" & "));
+        Query query = entityManager.createNativeQuery("select i.item_id, i.name, i.description, " +
+                        "i.available, i.request_id from items i " +
+                        "where i.available = true " +
+                        "and (i.name ilike :pattern escape '\\' or i.description ilike :pattern escape '\\') " +
+                        "order by case when i.name ilike :pattern escape '\\' then 0 else 1 end, " +
+                        (rankQuery.isEmpty() ? "" : "ts_rank(i.search_vector, to_tsquery('simple', :query)) desc, ") +
+                        "i.item_id")
+                .setParameter("pattern", "%" + escapeLike(request) + "%")
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize());
+        if (!rankQuery.isEmpty()) {
+            query.setParameter("query", rankQuery);
+        }
+        List<Object[]> rows = query.getResultList();
+        return rows.stream()
+                .map(row -> new ItemView(
+                        ((Number) row[0]).longValue(),
+                        (String) row[1],
+                        (String) row[2],
+                        (Boolean) row[3],
+                        row[4] == null ? null : ((Number) row[4]).longValue()))
+                .collect(Collectors.toList());
+    }
+
+    private List<ItemView> findItemsBySubstring(String request, Pageable pageable) {
+        return entityManager.createQuery("select new ru.practicum.shareits.item.dto.ItemView(" +
+                        "i.id, i.name, i.description, i.available, i.requestId) from Item i " +
+                        "where (upper(i.name) like upper(concat('%', :request, '%')) escape '\\' " +
+                        "or upper(i.description) like upper(concat('%', :request, '%')) escape '\\') " +
+                        "and i.available = true " +
+                        "order by case when upper(i.name) like upper(concat('%', :request, '%')) escape '\\' " +
+                        "then 0 else 1 end, i.id", ItemView.class)
+                .setParameter("request", escapeLike(request))
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize())
+                .getResultList();
+    }
+
+    private static String escapeLike(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private Booking findNearestBooking(Long itemId, String condition, LocalDateTime now) {
+        return entityManager.createQuery("select b from Booking b where b.item.id = :itemId and " + condition,
+                        Booking.class)
+                .setParameter("itemId", itemId)
+                .setParameter("now", now)
+                .setMaxResults(1)
+                .getResultStream()
+                .findFirst()
+                .orElse(null);
     }
 }
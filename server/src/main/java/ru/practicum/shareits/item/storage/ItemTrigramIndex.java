@@ -0,0 +1,255 @@
+package ru.practicum.shareits.item.storage;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareits.item.model.Item;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Component
+@Slf4j
+public class ItemTrigramIndex {
+
+    private static final int GRAM_LENGTH = 3;
+    private static final int LOAD_PAGE_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final Timer queryTimer;
+
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final NavigableMap<Integer, Document> documents = new TreeMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public ItemTrigramIndex(@Lazy ItemRepository itemRepository, MeterRegistry meterRegistry,
+                            @Value("${shareit.search.trigram-index.enabled:false}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.queryTimer = Timer.builder("items.search.index.query")
+                .description("Latency of item search queries answered by the trigram index")
+                .register(meterRegistry);
+        Gauge.builder("items.search.index.documents", this, ItemTrigramIndex::getDocumentsCount)
+                .description("Items held by the trigram index")
+                .register(meterRegistry);
+        Gauge.builder("items.search.index.trigrams", this, ItemTrigramIndex::getTrigramsCount)
+                .description("Distinct trigrams held by the trigram index")
+                .register(meterRegistry);
+        Gauge.builder("items.search.index.postings", this, ItemTrigramIndex::getPostingsCount)
+                .description("Item ids held by all trigram postings")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        Pageable pageable = PageRequest.of(0, LOAD_PAGE_SIZE, Sort.by("id").ascending());
+        Page<Item> page;
+        do {
+            page = itemRepository.findAll(pageable);
+            page.forEach(this::index);
+            pageable = page.nextPageable();
+        } while (page.hasNext());
+        log.info("Trigram index loaded with {} items", getDocumentsCount());
+    }
+
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+        int id = Math.toIntExact(item.getId());
+        Document document = new Document(normalize(item.getName()), normalize(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable()));
+        lock.writeLock().lock();
+        try {
+            Document previous = documents.put(id, document);
+            if (previous != null) {
+                for (String gram : previous.trigrams()) {
+                    Postings itemIds = postings.get(gram);
+                    itemIds.remove(id);
+                    if (itemIds.size == 0) {
+                        postings.remove(gram);
+                    }
+                }
+            }
+            for (String gram : document.trigrams()) {
+                postings.computeIfAbsent(gram, key -> new Postings()).add(id);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> search(String request, long offset, int limit) {
+        return queryTimer.record(() -> {
+            String text = normalize(request);
+            long wanted = offset + limit;
+            List<Long> nameMatches = new ArrayList<>();
+            List<Long> descriptionMatches = new ArrayList<>();
+            lock.readLock().lock();
+            try {
+                for (int id : candidates(text)) {
+                    if (nameMatches.size() >= wanted) {
+                        break;
+                    }
+                    Document document = documents.get(id);
+                    if (!document.available) {
+                        continue;
+                    }
+                    if (document.name.contains(text)) {
+                        nameMatches.add((long) id);
+                    } else if (descriptionMatches.size() < wanted && document.description.contains(text)) {
+                        descriptionMatches.add((long) id);
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+            nameMatches.addAll(descriptionMatches);
+            if (offset >= nameMatches.size()) {
+                return List.of();
+            }
+            return new ArrayList<>(nameMatches.subList((int) offset,
+                    (int) Math.min(nameMatches.size(), wanted)));
+        });
+    }
+
+    private Iterable<Integer> candidates(String text) {
+        if (text.length() < GRAM_LENGTH) {
+            return documents.keySet();
+        }
+        List<Postings> lists = new ArrayList<>();
+        for (String gram : grams(text)) {
+            Postings itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return List.of();
+            }
+            lists.add(itemIds);
+        }
+        lists.sort(Comparator.comparingInt(itemIds -> itemIds.size));
+        int[] intersection = Arrays.copyOf(lists.get(0).ids, lists.get(0).size);
+        int size = intersection.length;
+        for (int i = 1; i < lists.size() && size > 0; i++) {
+            Postings next = lists.get(i);
+            int kept = 0;
+            for (int j = 0; j < size; j++) {
+                if (Arrays.binarySearch(next.ids, 0, next.size, intersection[j]) >= 0) {
+                    intersection[kept++] = intersection[j];
+                }
+            }
+            size = kept;
+        }
+        List<Integer> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            result.add(intersection[i]);
+        }
+        return result;
+    }
+
+    private int getDocumentsCount() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int getTrigramsCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long getPostingsCount() {
+        lock.readLock().lock();
+        try {
+            return postings.values().stream()
+                    .mapToLong(itemIds -> itemIds.size)
+                    .sum();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.toLowerCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return grams;
+    }
+
+    private static class Document {
+
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private Document(String name, String description, boolean available) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+        }
+
+        private Set<String> trigrams() {
+            Set<String> grams = grams(name);
+            grams.addAll(grams(description));
+            return grams;
+        }
+    }
+
+    private static class Postings {
+
+        private int[] ids = new int[4];
+        private int size;
+
+        private void add(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+
+        private void remove(int id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+        }
+    }
+}
@@ -3,8 +3,11 @@ package ru.practicum.shareits.request.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.request.dto.ItemRequestDto;
 import ru.practicum.shareits.request.service.ItemRequestService;
 
@@ -35,12 +38,22 @@ public class ItemRequestController {
     }
 
     @GetMapping("/all")
-    public List<ItemRequestDto> getAllRequests(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
-                                               @RequestParam(defaultValue = "0") Integer from,
-                                               @RequestParam(defaultValue = "10") Integer size) {
-        Sort sort = Sort.by("created").descending();
-        Pageable pageable = FromSizeRequest.of(from, size, sort);
-        return itemRequestService.getAllRequests(userId, pageable);
+    public ResponseEntity<List<ItemRequestDto>> getAllRequests(@RequestHeader(value = "X-Sharer-User-Id") Long userId,
+                                                               @RequestParam(defaultValue = "0") Integer from,
+                                                               @RequestParam(defaultValue = "10") Integer size,
+                                                               @RequestParam(required = false) String cursor) {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        Pageable pageable;
+        if (cursor != null) {
+            pageable = SeekRequest.of(PageCursor.decodeWithPosition(cursor), size, sort);
+        } else {
+            pageable = FromSizeRequest.of(from, size, sort);
+        }
+        List<ItemRequestDto> requests = itemRequestService.getAllRequests(userId, pageable);
+        return ResponseEntity.ok()
+                .headers(PageCursor.nextPageHeaders(requests, size,
+                        requestDto -> PageCursor.of(requestDto.getCreated(), requestDto.getId())))
+                .body(requests);
     }
 
 }
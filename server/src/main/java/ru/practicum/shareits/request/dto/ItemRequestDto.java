@@ -2,6 +2,7 @@ package ru.practicum.shareits.request.dto;
 
 import lombok.Data;
 
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.item.model.Item;
 
 import java.time.LocalDateTime;
@@ -30,6 +31,18 @@ public class ItemRequestDto {
         }
     }
 
+    public void setItemViews(List<ItemView> items) {
+        for (ItemView item : items) {
+            this.items.add(new ItemDtoForRequest(
+                    item.getId(),
+                    item.getName(),
+                    item.getDescription(),
+                    item.getAvailable(),
+                    item.getRequestId()
+            ));
+        }
+    }
+
     @Data
     private class ItemDtoForRequest {
 
@@ -0,0 +1,20 @@
+package ru.practicum.shareits.request.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+@Getter
+@EqualsAndHashCode
+@ToString
+@AllArgsConstructor
+public class ItemRequestView {
+
+    private final Long id;
+    private final Long userId;
+    private final String description;
+    private final LocalDateTime created;
+}
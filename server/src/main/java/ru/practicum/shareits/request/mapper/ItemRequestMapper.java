@@ -1,11 +1,14 @@
 package ru.practicum.shareits.request.mapper;
 
 import org.springframework.stereotype.Service;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.request.dto.ItemRequestDto;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.model.ItemRequest;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -30,9 +33,29 @@ public class ItemRequestMapper {
         return itemRequestDto;
     }
 
+    public ItemRequestDto convertViewToItemRequestDto(ItemRequestView itemRequest, List<ItemView> items) {
+        ItemRequestDto itemRequestDto = new ItemRequestDto();
+        itemRequestDto.setId(itemRequest.getId());
+        itemRequestDto.setUserId(itemRequest.getUserId());
+        itemRequestDto.setDescription(itemRequest.getDescription());
+        itemRequestDto.setCreated(itemRequest.getCreated());
+        itemRequestDto.setItemViews(items);
+        return itemRequestDto;
+    }
+
     public List<ItemRequestDto> convertAllToItemRequestDto(List<ItemRequest> itemRequests) {
         return itemRequests.stream()
                 .map(this::convertToItemRequestDto)
                 .collect(Collectors.toList());
     }
+
+    public List<ItemRequestDto> convertAllViewsToItemRequestDto(List<ItemRequestView> itemRequests,
+                                                                List<ItemView> items) {
+        Map<Long, List<ItemView>> itemsByRequest = items.stream()
+                .collect(Collectors.groupingBy(ItemView::getRequestId));
+        return itemRequests.stream()
+                .map(itemRequest -> convertViewToItemRequestDto(itemRequest,
+                        itemsByRequest.getOrDefault(itemRequest.getId(), List.of())))
+                .collect(Collectors.toList());
+    }
 }
@@ -1,6 +1,7 @@
 package ru.practicum.shareits.request.model;
 
 import lombok.Data;
+import org.hibernate.annotations.BatchSize;
 import ru.practicum.shareits.item.model.Item;
 
 import javax.persistence.*;
@@ -14,7 +15,8 @@ import java.util.List;
 public class ItemRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "requests_seq")
+    @SequenceGenerator(name = "requests_seq", sequenceName = "requests_seq", allocationSize = 50)
     @Column(name = "request_id")
     private Long id;
 
@@ -28,6 +30,7 @@ public class ItemRequest {
     private LocalDateTime created;
 
     @OneToMany
+    @BatchSize(size = 50)
     @JoinColumn(name = "request_id")
     private final List<Item> items = new ArrayList<>();
 }
@@ -7,12 +7,19 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareits.request.storage.ItemRequestRepository;
 import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
+import ru.practicum.shareits.item.dto.ItemView;
+import ru.practicum.shareits.item.storage.ItemRepository;
 import ru.practicum.shareits.request.dto.ItemRequestDto;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.mapper.ItemRequestMapper;
 import ru.practicum.shareits.request.model.ItemRequest;
 import ru.practicum.shareits.user.storage.UserRepository;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -21,6 +28,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
     private final ItemRequestMapper itemRequestMapper;
 
     @Override
@@ -43,9 +51,22 @@ public class ItemRequestServiceImpl implements ItemRequestService {
 
     @Override
     public List<ItemRequestDto> getAllRequests(Long userId, Pageable pageable) {
-        List<ItemRequest> itemRequests = itemRequestRepository.findAllByUserIdIsNot(userId, pageable);
+        List<ItemRequestView> itemRequests;
+        if (pageable instanceof SeekRequest) {
+            PageCursor cursor = ((SeekRequest) pageable).getCursor();
+            itemRequests = itemRequestRepository.findAllByUserIdIsNotAfterCursor(userId, cursor.getPosition(),
+                    cursor.getId(), pageable);
+        } else {
+            itemRequests = itemRequestRepository.findAllByUserIdIsNot(userId, pageable);
+        }
         log.info("All requests are requested");
-        return itemRequestMapper.convertAllToItemRequestDto(itemRequests);
+        if (itemRequests.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<ItemView> items = itemRepository.findViewsByRequestIdIn(itemRequests.stream()
+                .map(ItemRequestView::getId)
+                .collect(Collectors.toList()));
+        return itemRequestMapper.convertAllViewsToItemRequestDto(itemRequests, items);
     }
 
     @Override
@@ -3,11 +3,16 @@ package ru.practicum.shareits.request.storage;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.model.ItemRequest;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 @Transactional
@@ -15,6 +20,19 @@ public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long>
 
     List<ItemRequest> findAllByUserId(Long userId, Sort sort);
 
-    List<ItemRequest> findAllByUserIdIsNot(Long userId, Pageable pageable);
+    @Query("select r.id from ItemRequest r where r.id in ?1")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    String ITEM_REQUEST_VIEW = "select new ru.practicum.shareits.request.dto.ItemRequestView(" +
+            "r.id, r.userId, r.description, r.created) from ItemRequest r ";
+
+    @Query(ITEM_REQUEST_VIEW + "where r.userId <> ?1")
+    List<ItemRequestView> findAllByUserIdIsNot(Long userId, Pageable pageable);
+
+    @Query(value = ITEM_REQUEST_VIEW +
+            "where r.userId <> ?1 " +
+            "and (r.created < ?2 or (r.created = ?2 and r.id < ?3))")
+    List<ItemRequestView> findAllByUserIdIsNotAfterCursor(Long userId, LocalDateTime created, Long id,
+                                                          Pageable pageable);
 
 }
@@ -7,6 +7,8 @@ import ru.practicum.shareits.user.model.User;
 
 @Repository
 @Transactional
-public interface UserRepository extends JpaRepository<User, Long> {
+public interface UserRepository extends JpaRepository<User, Long>, UserRepositoryCustom {
 
+    @Override
+    boolean existsById(Long userId);
 }
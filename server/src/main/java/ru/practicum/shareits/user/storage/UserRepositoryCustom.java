@@ -0,0 +1,9 @@
+package ru.practicum.shareits.user.storage;
+
+import org.springframework.transaction.annotation.Transactional;
+
+public interface UserRepositoryCustom {
+
+    @Transactional(readOnly = true)
+    boolean existsById(Long userId);
+}
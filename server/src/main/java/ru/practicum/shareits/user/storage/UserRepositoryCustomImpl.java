@@ -0,0 +1,19 @@
+package ru.practicum.shareits.user.storage;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareits.user.model.User;
+
+import javax.persistence.EntityManager;
+
+@Repository
+@RequiredArgsConstructor
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private final EntityManager entityManager;
+
+    @Override
+    public boolean existsById(Long userId) {
+        return entityManager.find(User.class, userId) != null;
+    }
+}
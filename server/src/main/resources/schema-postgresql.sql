@@ -0,0 +1,39 @@
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector tsvector
+        GENERATED ALWAYS AS (setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+                             setweight(to_tsvector('simple', coalesce(description, '')), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING GIN (name gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING GIN (description gin_trgm_ops);
+
+SELECT setval('users_seq', (SELECT MAX(user_id) FROM users))
+WHERE (SELECT MAX(user_id) FROM users) >= (SELECT last_value FROM users_seq);
+
+SELECT setval('requests_seq', (SELECT MAX(request_id) FROM requests))
+WHERE (SELECT MAX(request_id) FROM requests) >= (SELECT last_value FROM requests_seq);
+
+SELECT setval('items_seq', (SELECT MAX(item_id) FROM items))
+WHERE (SELECT MAX(item_id) FROM items) >= (SELECT last_value FROM items_seq);
+
+SELECT setval('bookings_seq', (SELECT MAX(booking_id) FROM bookings))
+WHERE (SELECT MAX(booking_id) FROM bookings) >= (SELECT last_value FROM bookings_seq);
+
+SELECT setval('comments_seq', (SELECT MAX(comment_id) FROM comments))
+WHERE (SELECT MAX(comment_id) FROM comments) >= (SELECT last_value FROM comments_seq);
+
+CREATE EXTENSION IF NOT EXISTS btree_gist;
+
+DO 'BEGIN
+    IF (SELECT c.relkind FROM pg_class c WHERE c.oid = to_regclass(''bookings'')) = ''p'' THEN
+        RETURN;
+    END IF;
+    ALTER TABLE bookings ADD CONSTRAINT ex_bookings_item_period EXCLUDE USING gist
+        (item_id WITH =, tsrange(start_date, end_date, ''[)'') WITH &&) WHERE (status = ''APPROVED'');
+EXCEPTION
+    WHEN duplicate_table OR duplicate_object THEN NULL;
+    WHEN exclusion_violation THEN RAISE WARNING ''ex_bookings_item_period not created: approved bookings overlap'';
+END';
@@ -1,6 +1,13 @@
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS requests_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS items_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS bookings_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS comments_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE IF NOT EXISTS booking_events_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS users
 (
-    user_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    user_id BIGINT                                  NOT NULL,
     email   varchar(50)                             NOT NULL,
     name    varchar(50)                             NOT NULL,
     CONSTRAINT pk_user PRIMARY KEY (user_id),
@@ -9,7 +16,7 @@ CREATE TABLE IF NOT EXISTS users
 
 CREATE TABLE IF NOT EXISTS requests
 (
-    request_id  BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    request_id  BIGINT                                  NOT NULL,
     user_id     BIGINT                                  NOT NULL,
     description VARCHAR(1000)                           NOT NULL,
     created     TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
@@ -19,7 +26,7 @@ CREATE TABLE IF NOT EXISTS requests
 
 CREATE TABLE IF NOT EXISTS items
 (
-    item_id     BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    item_id     BIGINT                                  NOT NULL,
     user_id     BIGINT                                  NOT NULL,
     name        VARCHAR(50)                             NOT NULL,
     description VARCHAR(1000),
@@ -32,7 +39,7 @@ CREATE TABLE IF NOT EXISTS items
 
 CREATE TABLE IF NOT EXISTS bookings
 (
-    booking_id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    booking_id BIGINT                                  NOT NULL,
     item_id    BIGINT                                  NOT NULL,
     booker_id  BIGINT                                  NOT NULL,
     status     VARCHAR(20)                             NOT NULL,
@@ -43,9 +50,48 @@ CREATE TABLE IF NOT EXISTS bookings
     CONSTRAINT fk_bookings_to_users FOREIGN KEY (booker_id) REFERENCES users (user_id)
 );
 
+DROP INDEX IF EXISTS idx_bookings_item_start;
+CREATE INDEX IF NOT EXISTS idx_bookings_item_period ON bookings (item_id, start_date, end_date);
+
+CREATE TABLE IF NOT EXISTS bookings_archive
+(
+    booking_id BIGINT                                  NOT NULL,
+    item_id    BIGINT                                  NOT NULL,
+    booker_id  BIGINT                                  NOT NULL,
+    status     VARCHAR(20)                             NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    CONSTRAINT pk_bookings_archive PRIMARY KEY (booking_id),
+    CONSTRAINT fk_bookings_archive_to_items FOREIGN KEY (item_id) REFERENCES items (item_id),
+    CONSTRAINT fk_bookings_archive_to_users FOREIGN KEY (booker_id) REFERENCES users (user_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_booker_start ON bookings_archive (booker_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_bookings_archive_item_start ON bookings_archive (item_id, start_date);
+
+CREATE TABLE IF NOT EXISTS booking_events
+(
+    event_id   BIGINT                                  NOT NULL,
+    event_type VARCHAR(20)                             NOT NULL,
+    booking_id BIGINT                                  NOT NULL,
+    item_id    BIGINT                                  NOT NULL,
+    owner_id   BIGINT                                  NOT NULL,
+    booker_id  BIGINT                                  NOT NULL,
+    status     VARCHAR(20)                             NOT NULL,
+    start_date TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    end_date   TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    created    TIMESTAMP WITHOUT TIME ZONE             NOT NULL,
+    dispatched TIMESTAMP WITHOUT TIME ZONE,
+    CONSTRAINT pk_booking_events PRIMARY KEY (event_id)
+);
+
+CREATE INDEX IF NOT EXISTS idx_booking_events_dispatched ON booking_events (dispatched, event_id);
+CREATE INDEX IF NOT EXISTS idx_booking_events_owner_dispatched ON booking_events (owner_id, dispatched, event_id);
+CREATE INDEX IF NOT EXISTS idx_booking_events_booker_dispatched ON booking_events (booker_id, dispatched, event_id);
+
 CREATE TABLE IF NOT EXISTS comments
 (
-    comment_id   BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+    comment_id   BIGINT                                  NOT NULL,
     comment_text VARCHAR(1000)                           NOT NULL,
     item_id      BIGINT                                  NOT NULL,
     author_id    BIGINT                                  NOT NULL,
@@ -55,3 +101,41 @@ CREATE TABLE IF NOT EXISTS comments
     CONSTRAINT fk_comments_to_users FOREIGN KEY (author_id) REFERENCES users (user_id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, created);
+
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS last_booking_id BIGINT;
+ALTER TABLE items ADD COLUMN IF NOT EXISTS next_booking_id BIGINT;
+
+CREATE TABLE IF NOT EXISTS schema_backfills
+(
+    backfill_name VARCHAR(255) NOT NULL,
+    CONSTRAINT pk_schema_backfills PRIMARY KEY (backfill_name)
+);
+
+UPDATE items i
+SET last_booking_id = (SELECT b.booking_id
+                       FROM bookings b
+                       WHERE b.item_id = i.item_id
+                         AND b.start_date < LOCALTIMESTAMP
+                       ORDER BY b.start_date DESC, b.booking_id DESC
+                       LIMIT 1)
+WHERE NOT EXISTS(SELECT 1 FROM schema_backfills WHERE backfill_name = 'item_booking_pointers')
+  AND i.last_booking_id IS NULL
+  AND i.next_booking_id IS NULL
+  AND EXISTS(SELECT 1 FROM bookings b WHERE b.item_id = i.item_id AND b.start_date < LOCALTIMESTAMP);
+
+UPDATE items i
+SET next_booking_id = (SELECT b.booking_id
+                       FROM bookings b
+                       WHERE b.item_id = i.item_id
+                         AND b.start_date > LOCALTIMESTAMP
+                       ORDER BY b.start_date, b.booking_id
+                       LIMIT 1)
+WHERE NOT EXISTS(SELECT 1 FROM schema_backfills WHERE backfill_name = 'item_booking_pointers')
+  AND i.next_booking_id IS NULL
+  AND EXISTS(SELECT 1 FROM bookings b WHERE b.item_id = i.item_id AND b.start_date > LOCALTIMESTAMP);
+
+INSERT INTO schema_backfills (backfill_name)
+SELECT 'item_booking_pointers'
+WHERE NOT EXISTS(SELECT 1 FROM schema_backfills WHERE backfill_name = 'item_booking_pointers');
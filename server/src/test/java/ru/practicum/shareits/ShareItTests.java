@@ -1,13 +1,29 @@
 package ru.practicum.shareits;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
 @SpringBootTest
 class ShareItTests {
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void entityCacheMetricsRegistered() {
+		assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+				.tags("region", "users", "result", "hit")
+				.functionCounter());
+		assertNotNull(meterRegistry.find("hibernate.second.level.cache.requests")
+				.tags("region", "items", "result", "miss")
+				.functionCounter());
+	}
 }
@@ -11,21 +11,32 @@ import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareits.booking.dto.BookingBatchResult;
+import ru.practicum.shareits.booking.dto.BookingDecision;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
 import ru.practicum.shareits.booking.enums.State;
 import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.service.BookingEventStream;
 import ru.practicum.shareits.booking.service.BookingService;
+import ru.practicum.shareits.common.exceptions.BookingConflictException;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.user.model.User;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(BookingController.class)
@@ -40,6 +51,9 @@ class BookingControllerTest {
     @MockBean
     private   BookingService bookingService;
 
+    @MockBean
+    private BookingEventStream bookingEventStream;
+
     private  Long id;
     private  Long userId;
     private  BookingDtoRequest bookingDtoRequest;
@@ -128,6 +142,39 @@ class BookingControllerTest {
         verify(bookingService, times(1)).considerationBooking(userId, 1L, true);
     }
 
+    @SneakyThrows
+    @Test
+    void considerationBooking_whenPeriodAlreadyBooked_thenReturnConflict() {
+        when(bookingService.considerationBooking(userId, 1L, true))
+                .thenThrow(new BookingConflictException("the item is already booked for this period"));
+
+        mvc.perform(patch("/bookings/{bookingId}", 1L)
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("approved", "true"))
+                .andExpect(status().isConflict());
+    }
+
+    @SneakyThrows
+    @Test
+    void considerationBookings_whenIsOk_thenReturnOutcomes() {
+        List<BookingDecision> decisions = List.of(new BookingDecision(1L, true), new BookingDecision(2L, false));
+        List<BookingBatchResult> results = List.of(BookingBatchResult.considered(0, 1L, Status.APPROVED),
+                BookingBatchResult.failed(1, 2L, "incorrect owner"));
+        when(bookingService.considerationBookings(userId, decisions)).thenReturn(results);
+
+        String result = mvc.perform(patch("/bookings/batch")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .content(mapper.writeValueAsString(decisions)))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(results), result);
+        verify(bookingService, never()).considerationBooking(any(), any(), anyBoolean());
+    }
 
     @SneakyThrows
     @Test
@@ -227,9 +274,10 @@ class BookingControllerTest {
     @SneakyThrows
     @Test
     void getAllBookings_whenIsOk_thenReturnBookingsList() {
-        Sort sort = Sort.by("start").descending();
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
-        when(bookingService.getALLBookings(userId, State.ALL, pageable)).thenReturn(List.of(expectedBookingDto));
+        when(bookingService.getALLBookings(userId, BookingFilter.of(State.ALL), pageable))
+                .thenReturn(List.of(expectedBookingDto));
 
         String result = mvc.perform(get("/bookings")
                         .contentType("application/json")
@@ -245,6 +293,68 @@ class BookingControllerTest {
         assertEquals(mapper.writeValueAsString(List.of(expectedBookingDto)), result);
     }
 
+    @SneakyThrows
+    @Test
+    void getAllBookings_whenItemAndRangeFilter_thenPassedToService() {
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        LocalDateTime rangeStart = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime rangeEnd = LocalDateTime.of(2030, 2, 1, 0, 0);
+        BookingFilter filter = new BookingFilter(State.FUTURE, 3L, rangeStart, rangeEnd);
+        when(bookingService.getALLBookings(userId, filter, pageable)).thenReturn(List.of(expectedBookingDto));
+
+        mvc.perform(get("/bookings")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "FUTURE")
+                        .param("from", "0")
+                        .param("size", "10")
+                        .param("itemId", "3")
+                        .param("rangeStart", "2030-01-01T00:00:00")
+                        .param("rangeEnd", "2030-02-01T00:00:00"))
+                .andExpect(status().isOk());
+
+        verify(bookingService, times(1)).getALLBookings(userId, filter, pageable);
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllBookings_whenCursor_thenSeekAndReturnNextCursor() {
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        PageCursor cursor = PageCursor.of(expectedBookingDto.getStart().plusDays(1), 5L);
+        Pageable pageable = SeekRequest.of(cursor, 1, sort);
+        when(bookingService.getALLBookings(userId, BookingFilter.of(State.ALL), pageable))
+                .thenReturn(List.of(expectedBookingDto));
+
+        String nextCursor = mvc.perform(get("/bookings")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "ALL")
+                        .param("from", "0")
+                        .param("size", "1")
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(PageCursor.NEXT_CURSOR_HEADER);
+
+        assertEquals(PageCursor.of(expectedBookingDto.getStart(), id), PageCursor.decode(nextCursor));
+    }
+
+    @SneakyThrows
+    @Test
+    void getAllBookings_whenCursorNotValid_thenReturnError() {
+        mvc.perform(get("/bookings")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", userId)
+                        .param("state", "ALL")
+                        .param("from", "0")
+                        .param("size", "10")
+                        .param("cursor", PageCursor.of(id).encode()))
+                .andExpect(status().isBadRequest());
+        verify(bookingService, never()).getALLBookings(any(), any(), any());
+    }
+
     @SneakyThrows
     @Test
     void getAllBookings_whenNoHeaderId_thenReturnError() {
@@ -295,9 +405,10 @@ class BookingControllerTest {
     @SneakyThrows
     @Test
     void getAllBookingsByOwner_whenIsOk_thenReturnBookingsList() {
-        Sort sort = Sort.by("start").descending();
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
-        when(bookingService.getAllBookingsByOwner(userId, State.ALL, pageable)).thenReturn(List.of(expectedBookingDto));
+        when(bookingService.getAllBookingsByOwner(userId, BookingFilter.of(State.ALL), pageable))
+                .thenReturn(List.of(expectedBookingDto));
 
         String result = mvc.perform(get("/bookings/owner")
                         .contentType("application/json")
@@ -359,4 +470,37 @@ class BookingControllerTest {
                         .param("size", "0"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @SneakyThrows
+    @Test
+    void exportBookingsByOwner_whenIsOk_thenReturnNdjson() {
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(1);
+            consumer.accept(expectedBookingDto);
+            return null;
+        }).when(bookingService).exportBookingsByOwner(eq(userId), any());
+
+        String result = mvc.perform(get("/bookings/owner/export")
+                        .header("X-Sharer-User-Id", userId))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedBookingDto) + "\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void streamBookings_whenLastEventIdSent_thenSubscribedFromIt() {
+        when(bookingEventStream.subscribe(userId, "cursor")).thenReturn(new SseEmitter());
+
+        mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", userId)
+                        .header("Last-Event-ID", "cursor"))
+                .andExpect(request().asyncStarted());
+
+        verify(bookingEventStream, times(1)).subscribe(userId, "cursor");
+    }
+}
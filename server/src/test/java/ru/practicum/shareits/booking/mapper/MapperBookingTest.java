@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingView;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.item.model.Item;
@@ -69,4 +70,14 @@ class MapperBookingTest {
 
         assertEquals(List.of(bookingDto), result);
     }
+
+    @Test
+    void convertAllBookingViewsToBookingsDto() {
+        BookingView bookingView = new BookingView(1L, booking.getStart(), booking.getEnd(), Status.WAITING,
+                item.getId(), item.getName(), item.getDescription(), booker.getId(), booker.getEmail(), booker.getName());
+
+        List<BookingDto> result = mapperBooking.convertAllBookingViewsToBookingsDto(List.of(bookingView));
+
+        assertEquals(List.of(bookingDto), result);
+    }
 }
\ No newline at end of file
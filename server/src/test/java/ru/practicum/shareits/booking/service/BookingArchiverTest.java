@@ -0,0 +1,41 @@
+package ru.practicum.shareits.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareits.booking.storage.BookingRepository;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingArchiverTest {
+
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+    }
+
+    @Test
+    void archive_whenBatchesFull_thenArchivingRepeatedUntilShortBatch() {
+        BookingArchiver archiver = new BookingArchiver(bookingRepository, 100);
+        when(bookingRepository.archiveFinishedBookings(any(), eq(100))).thenReturn(100, 100, 7);
+
+        archiver.archive();
+
+        verify(bookingRepository, times(3)).archiveFinishedBookings(any(), eq(100));
+    }
+
+    @Test
+    void archive_whenNothingToArchive_thenSingleBatch() {
+        BookingArchiver archiver = new BookingArchiver(bookingRepository, 100);
+
+        archiver.archive();
+
+        verify(bookingRepository, times(1)).archiveFinishedBookings(any(), eq(100));
+    }
+}
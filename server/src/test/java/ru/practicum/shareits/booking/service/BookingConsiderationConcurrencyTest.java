@@ -0,0 +1,88 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareits.booking.dto.BookingDto;
+import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.common.exceptions.BookingAccessErrorException;
+import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.service.ItemService;
+import ru.practicum.shareits.user.dto.UserDto;
+import ru.practicum.shareits.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingConsiderationConcurrencyTest {
+
+    private static final int THREADS = 16;
+
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+
+    @DirtiesContext
+    @Test
+    void considerationBooking_whenConsideredConcurrently_thenExactlyOneTransitionWins() throws Exception {
+        UserDto owner = userService.createUser(new UserDto(null, "owner@ya.ru", "owner"));
+        UserDto booker = userService.createUser(new UserDto(null, "booker@ya.ru", "booker"));
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("item");
+        itemDto.setDescription("useful");
+        itemDto.setAvailable(true);
+        ItemDto item = itemService.createItem(itemDto, owner.getId());
+
+        BookingDtoRequest bookingDtoRequest = new BookingDtoRequest();
+        bookingDtoRequest.setItemId(item.getId());
+        bookingDtoRequest.setStart(LocalDateTime.now().plusDays(1));
+        bookingDtoRequest.setEnd(LocalDateTime.now().plusDays(3));
+        Long bookingId = bookingService.addBooking(booker.getId(), bookingDtoRequest).getId();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<Future<BookingDto>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < THREADS; i++) {
+                boolean approved = i % 2 == 0;
+                futures.add(executor.submit(() -> {
+                    startGate.await();
+                    return bookingService.considerationBooking(owner.getId(), bookingId, approved);
+                }));
+            }
+            startGate.countDown();
+
+            List<BookingDto> winners = new ArrayList<>();
+            int rejectedAttempts = 0;
+            for (Future<BookingDto> future : futures) {
+                try {
+                    winners.add(future.get(30, TimeUnit.SECONDS));
+                } catch (ExecutionException e) {
+                    assertInstanceOf(BookingAccessErrorException.class, e.getCause());
+                    rejectedAttempts++;
+                }
+            }
+
+            assertEquals(1, winners.size());
+            assertEquals(THREADS - 1, rejectedAttempts);
+            assertEquals(winners.get(0).getStatus(),
+                    bookingService.getBooking(owner.getId(), bookingId).getStatus());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.practicum.shareits.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.mapper.MapperBooking;
+import ru.practicum.shareits.booking.model.BookingEvent;
+import ru.practicum.shareits.booking.storage.BookingEventRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingEventDispatcherTest {
+
+    private BookingEventRepository bookingEventRepository;
+    private BookingEventSink sink;
+    private BookingEventDispatcher dispatcher;
+    private final LocalDateTime time = LocalDateTime.now();
+    private final BookingEvent event = new BookingEvent(1L, BookingEventType.CREATED, 1L, 1L, 1L, 2L,
+            Status.WAITING, time.plusDays(1), time.plusDays(2), time, null);
+
+    @BeforeEach
+    void setUp() {
+        bookingEventRepository = mock(BookingEventRepository.class);
+        sink = mock(BookingEventSink.class);
+        dispatcher = new BookingEventDispatcher(bookingEventRepository, List.of(sink), new MapperBooking(), 1,
+                Duration.ofDays(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void dispatch_whenBatchesFull_thenEventsPublishedUntilShortBatch() {
+        when(bookingEventRepository.dispatchPending(eq(1), any(), any())).thenAnswer(invocation -> {
+            ((Consumer<List<BookingEvent>>) invocation.getArgument(2)).accept(List.of(event));
+            return 1;
+        }).thenReturn(0);
+
+        dispatcher.dispatch();
+
+        verify(bookingEventRepository, times(2)).dispatchPending(eq(1), any(), any());
+        verify(sink, times(1)).publish(List.of(new BookingEventDto(1L, BookingEventType.CREATED, 1L, 1L, 1L, 2L,
+                Status.WAITING, time.plusDays(1), time.plusDays(2), time)));
+    }
+
+    @Test
+    void dispatch_whenSinkFails_thenDispatchStoppedWithoutException() {
+        when(bookingEventRepository.dispatchPending(anyInt(), any(), any()))
+                .thenThrow(new IllegalStateException("sink unavailable"));
+
+        dispatcher.dispatch();
+
+        verify(bookingEventRepository, times(1)).dispatchPending(anyInt(), any(), any());
+    }
+
+    @Test
+    void purge_thenEventsOlderThanRetentionDeleted() {
+        dispatcher.purge();
+
+        verify(bookingEventRepository, times(1)).deleteDispatchedBefore(any());
+    }
+}
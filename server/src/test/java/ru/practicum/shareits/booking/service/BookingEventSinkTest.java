@@ -0,0 +1,75 @@
+package ru.practicum.shareits.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.practicum.shareits.booking.dto.BookingEventDto;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Status;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BookingEventSinkTest {
+
+    private final LocalDateTime time = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private final BookingEventDto event = new BookingEventDto(1L, BookingEventType.CREATED, 1L, 1L, 1L, 2L,
+            Status.WAITING, time.plusDays(1), time.plusDays(2), time);
+
+    @Test
+    void inMemoryPublish_thenEventsFannedOutToSubscribersUntilUnsubscribed() {
+        InMemoryBookingEventSink sink = new InMemoryBookingEventSink();
+        List<BookingEventDto> first = new ArrayList<>();
+        List<BookingEventDto> second = new ArrayList<>();
+        Runnable unsubscribe = sink.subscribe(first::add);
+        sink.subscribe(second::add);
+
+        sink.publish(List.of(event));
+        unsubscribe.run();
+        sink.publish(List.of(event));
+
+        assertEquals(List.of(event), first);
+        assertEquals(List.of(event, event), second);
+    }
+
+    @Test
+    void inMemoryPublish_whenSubscriberFails_thenOthersServedAndFailureRethrown() {
+        InMemoryBookingEventSink sink = new InMemoryBookingEventSink();
+        List<BookingEventDto> received = new ArrayList<>();
+        sink.subscribe(event -> {
+            throw new IllegalStateException("subscriber failed");
+        });
+        sink.subscribe(received::add);
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> sink.publish(List.of(event)));
+
+        assertEquals("subscriber failed", exception.getMessage());
+        assertEquals(List.of(event), received);
+    }
+
+    @Test
+    void filePublish_thenEventsAppendedAsJsonLines(@TempDir Path directory) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        Path file = directory.resolve("events.ndjson");
+        FileBookingEventSink sink = new FileBookingEventSink(objectMapper, file);
+
+        sink.publish(List.of(event));
+        sink.publish(List.of(event));
+
+        List<String> lines = Files.readAllLines(file);
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(0).contains("\"id\":1,"));
+        assertTrue(lines.get(0).contains("\"type\":\"CREATED\""));
+        assertTrue(lines.get(0).contains("\"created\":\"2030-01-01T12:00:00\""));
+    }
+}
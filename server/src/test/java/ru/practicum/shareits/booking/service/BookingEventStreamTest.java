@@ -0,0 +1,195 @@
+package ru.practicum.shareits.booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.practicum.shareits.booking.controller.BookingController;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.mapper.MapperBooking;
+import ru.practicum.shareits.booking.model.BookingEvent;
+import ru.practicum.shareits.booking.storage.BookingEventRepository;
+import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
+import ru.practicum.shareits.common.exceptions.ErrorHandler;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.user.storage.UserRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class BookingEventStreamTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final BookingEventRepository bookingEventRepository = mock(BookingEventRepository.class);
+    private final LocalDateTime time = LocalDateTime.of(2030, 1, 1, 12, 0);
+    private BookingEventStream stream;
+    private MockMvc mvc;
+
+    @BeforeEach
+    void setUp() {
+        stream = new BookingEventStream(userRepository, bookingEventRepository, new MapperBooking(), 2,
+                Duration.ofMinutes(1), Duration.ofSeconds(30), Duration.ofSeconds(10), 500, 1, 4);
+        mvc = MockMvcBuilders.standaloneSetup(new BookingController(mock(BookingService.class), stream,
+                new ObjectMapper())).setControllerAdvice(new ErrorHandler()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+    }
+
+    @Test
+    void poll_whenUserIsOwnerOrBooker_thenEventStreamedToBoth() {
+        when(userRepository.existsById(anyLong())).thenReturn(true);
+        when(bookingEventRepository.findDispatchedAfter(any(), any(), any()))
+                .thenReturn(List.of(event(7L, BookingEventType.CREATED, time)));
+        MockHttpServletResponse owner = open(1L, null);
+        MockHttpServletResponse booker = open(2L, null);
+        MockHttpServletResponse stranger = open(3L, null);
+
+        stream.poll();
+
+        awaitContent(owner, content -> content.contains("event:CREATED\n"));
+        awaitContent(booker, content -> content.contains("event:CREATED\n"));
+        assertTrue(contentOf(owner).contains("id:" + PageCursor.of(time, 7L).encode() + "\n"));
+        assertEquals("", contentOf(stranger));
+    }
+
+    @Test
+    void poll_whenEventReadAgainInOverlapWindow_thenStreamedOnce() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingEventRepository.findDispatchedAfter(any(), any(), any()))
+                .thenReturn(List.of(event(7L, BookingEventType.CREATED, time)),
+                        List.of(event(7L, BookingEventType.CREATED, time),
+                                event(3L, BookingEventType.STATUS_CHANGED, time.minusSeconds(1))));
+        MockHttpServletResponse response = open(1L, null);
+
+        stream.poll();
+        stream.poll();
+
+        awaitContent(response, content -> content.contains("event:STATUS_CHANGED\n"));
+        String content = contentOf(response);
+        assertEquals(content.indexOf("\"id\":7,"), content.lastIndexOf("\"id\":7,"));
+        assertTrue(content.contains("id:" + PageCursor.of(time, 7L).encode() + "\nevent:STATUS_CHANGED\n"));
+    }
+
+    @Test
+    void subscribe_whenLastEventIdSent_thenOverlapAndMissedEventsReplayedOnceBeforeLiveOnes() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingEventRepository.findDispatchedByUserIdAfter(1L, time.minusSeconds(30), 0L,
+                PageRequest.of(0, 2)))
+                .thenReturn(List.of(event(4L, BookingEventType.CREATED, time.minusSeconds(10)),
+                        event(5L, BookingEventType.CREATED, time)));
+        when(bookingEventRepository.findDispatchedByUserIdAfter(1L, time, 5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(event(6L, BookingEventType.CREATED, time.plusSeconds(1))));
+        when(bookingEventRepository.findDispatchedAfter(any(), any(), any()))
+                .thenReturn(List.of(event(6L, BookingEventType.CREATED, time.plusSeconds(1)),
+                        event(8L, BookingEventType.STATUS_CHANGED, time.plusSeconds(2))));
+        MockHttpServletResponse response = open(1L, PageCursor.of(time, 5L).encode());
+
+        stream.poll();
+
+        awaitContent(response, content -> content.contains("\"id\":8,"));
+        String content = contentOf(response);
+        assertFalse(content.contains("\"id\":5,"));
+        assertEquals(content.indexOf("\"id\":6,"), content.lastIndexOf("\"id\":6,"));
+        assertTrue(content.indexOf("\"id\":4,") < content.indexOf("\"id\":6,"));
+        assertTrue(content.indexOf("\"id\":6,") < content.indexOf("\"id\":8,"));
+        assertTrue(content.startsWith("id:" + PageCursor.of(time, 5L).encode() + "\n"));
+    }
+
+    @Test
+    void subscribe_whenReplayExceedsBuffer_thenBufferReplayedAndStreamClosed() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingEventRepository.findDispatchedByUserIdAfter(1L, time, 5L, PageRequest.of(0, 3)))
+                .thenReturn(List.of(event(6L, BookingEventType.CREATED, time.plusSeconds(1)),
+                        event(7L, BookingEventType.CREATED, time.plusSeconds(2)),
+                        event(8L, BookingEventType.CREATED, time.plusSeconds(3))));
+        lenient().when(bookingEventRepository.findDispatchedAfter(any(), any(), any()))
+                .thenReturn(List.of(event(9L, BookingEventType.STATUS_CHANGED, time.plusSeconds(4))));
+        MockHttpServletResponse response = open(1L, PageCursor.of(time, 5L).encode());
+
+        stream.poll();
+        awaitContent(response, content -> content.contains("\"id\":7,"));
+
+        String content = contentOf(response);
+        assertFalse(content.contains("\"id\":8,"));
+        assertFalse(content.contains("\"id\":9,"));
+    }
+
+    @Test
+    void heartbeat_whenConnectionIdle_thenCommentSent() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        MockHttpServletResponse response = open(1L, null);
+
+        stream.heartbeat();
+
+        awaitContent(response, content -> content.contains(":heartbeat\n"));
+    }
+
+    @SneakyThrows
+    @Test
+    void subscribe_whenLastEventIdInvalid_thenReturnBadRequest() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+
+        mvc.perform(get("/bookings/stream")
+                        .header("X-Sharer-User-Id", 1L)
+                        .header("Last-Event-ID", "5"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void subscribe_whenUserNotExists_thenThrowException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class, () -> stream.subscribe(1L, null));
+        verify(bookingEventRepository, never()).findDispatchedByUserIdAfter(any(), any(), any(), any());
+    }
+
+    @SneakyThrows
+    private MockHttpServletResponse open(Long userId, String lastEventId) {
+        return mvc.perform(lastEventId == null
+                        ? get("/bookings/stream").header("X-Sharer-User-Id", userId)
+                        : get("/bookings/stream").header("X-Sharer-User-Id", userId)
+                        .header("Last-Event-ID", lastEventId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+    }
+
+    @SneakyThrows
+    private void awaitContent(MockHttpServletResponse response, Predicate<String> condition) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test(contentOf(response))) {
+            assertTrue(System.currentTimeMillis() < deadline, contentOf(response));
+            Thread.sleep(10);
+        }
+    }
+
+    @SneakyThrows
+    private String contentOf(MockHttpServletResponse response) {
+        return response.getContentAsString();
+    }
+
+    private BookingEvent event(Long id, BookingEventType type, LocalDateTime dispatched) {
+        return new BookingEvent(id, type, 1L, 1L, 1L, 2L, Status.WAITING, time.plusDays(1), time.plusDays(2),
+                time, dispatched);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.practicum.shareits.booking.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareits.booking.storage.BookingRepository;
+
+import java.time.YearMonth;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class BookingPartitionMaintainerTest {
+
+    private BookingRepository bookingRepository;
+
+    @BeforeEach
+    void setUp() {
+        bookingRepository = mock(BookingRepository.class);
+    }
+
+    @Test
+    void maintain_whenRetentionDisabled_thenOnlyUpcomingPartitionsCreated() {
+        BookingPartitionMaintainer maintainer = new BookingPartitionMaintainer(bookingRepository, 3, 0);
+
+        maintainer.maintain();
+
+        verify(bookingRepository, times(1)).createPartitions(YearMonth.now(), 3);
+        verify(bookingRepository, never()).detachPartitionsBefore(any());
+    }
+
+    @Test
+    void maintain_whenRetentionSet_thenOlderPartitionsDetached() {
+        BookingPartitionMaintainer maintainer = new BookingPartitionMaintainer(bookingRepository, 3, 12);
+        when(bookingRepository.detachPartitionsBefore(YearMonth.now().minusMonths(12)))
+                .thenReturn(List.of("bookings_p202001"));
+
+        maintainer.maintain();
+
+        verify(bookingRepository, times(1)).createPartitions(YearMonth.now(), 3);
+        verify(bookingRepository, times(1)).detachPartitionsBefore(YearMonth.now().minusMonths(12));
+    }
+}
@@ -0,0 +1,62 @@
+package ru.practicum.shareits.booking.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.storage.BookingEventRepository;
+import ru.practicum.shareits.booking.storage.BookingRepository;
+import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.service.ItemService;
+import ru.practicum.shareits.item.storage.ItemRepository;
+import ru.practicum.shareits.user.dto.UserDto;
+import ru.practicum.shareits.user.service.UserService;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class BookingServiceImplRollbackTest {
+
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final BookingRepository bookingRepository;
+    private final BookingEventRepository bookingEventRepository;
+
+    @SpyBean
+    private ItemRepository itemRepository;
+
+    @DirtiesContext
+    @Test
+    void addBooking_whenItemLinkFails_thenNoBookingSaved() {
+        UserDto owner = userService.createUser(new UserDto(null, "owner@ya.ru", "owner"));
+        UserDto booker = userService.createUser(new UserDto(null, "booker@ya.ru", "booker"));
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("item");
+        itemDto.setDescription("useful");
+        itemDto.setAvailable(true);
+        ItemDto item = itemService.createItem(itemDto, owner.getId());
+
+        BookingDtoRequest bookingDtoRequest = new BookingDtoRequest();
+        bookingDtoRequest.setItemId(item.getId());
+        bookingDtoRequest.setStart(LocalDateTime.now().plusDays(1));
+        bookingDtoRequest.setEnd(LocalDateTime.now().plusDays(3));
+        doThrow(new CannotAcquireLockException("item is locked")).when(itemRepository).linkBooking(any(), any());
+
+        assertThrows(CannotAcquireLockException.class, () -> bookingService.addBooking(booker.getId(),
+                bookingDtoRequest));
+
+        assertEquals(0, bookingRepository.count());
+        assertEquals(0, bookingEventRepository.count());
+    }
+}
@@ -4,10 +4,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import ru.practicum.shareits.booking.dto.BookingBatchResult;
+import ru.practicum.shareits.booking.dto.BookingDecision;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.dto.BookingView;
+import ru.practicum.shareits.booking.enums.Role;
 import ru.practicum.shareits.booking.enums.State;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.mapper.MapperBooking;
@@ -15,14 +21,23 @@ import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.booking.storage.BookingRepository;
 import ru.practicum.shareits.common.exceptions.*;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.item.service.ItemAvailabilityCache;
+import ru.practicum.shareits.item.service.ItemResponseCache;
 import ru.practicum.shareits.item.storage.ItemRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -34,6 +49,8 @@ class BookingServiceImplTest {
     private UserRepository userRepository;
     private ItemRepository itemRepository;
     private BookingRepository bookingRepository;
+    private ItemResponseCache itemResponseCache;
+    private ItemAvailabilityCache itemAvailabilityCache;
 
     private Long id;
     private User user;
@@ -45,15 +62,18 @@ class BookingServiceImplTest {
     private BookingDto expectedBookingDto;
     private Booking booking;
     private Booking bookingWithoutId;
+    private BookingView bookingView;
 
     @BeforeEach
     void setUp() {
         userRepository = mock(UserRepository.class);
         itemRepository = mock(ItemRepository.class);
         bookingRepository = mock(BookingRepository.class);
+        itemResponseCache = mock(ItemResponseCache.class);
+        itemAvailabilityCache = mock(ItemAvailabilityCache.class);
         MapperBooking mapperBooking = new MapperBooking();
         service = new BookingServiceImpl(userRepository, itemRepository,
-                bookingRepository, mapperBooking);
+                bookingRepository, itemResponseCache, itemAvailabilityCache, mapperBooking);
 
         id = 1L;
         start = LocalDateTime.now().plusDays(1);
@@ -69,6 +89,8 @@ class BookingServiceImplTest {
 
         booking = new Booking(id, item, booker, Status.WAITING, start, end);
         bookingWithoutId = new Booking(null, item, booker, Status.WAITING, start, end);
+        bookingView = new BookingView(id, start, end, Status.WAITING, item.getId(), item.getName(),
+                item.getDescription(), booker.getId(), booker.getEmail(), booker.getName());
 
         expectedBookingDto = mapperBooking.convertBookingToBookingDto(booking);
     }
@@ -77,12 +99,13 @@ class BookingServiceImplTest {
     void addBooking_whenIsOk_thenReturnBooking() {
         when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(bookingRepository.save(bookingWithoutId)).thenReturn(booking);
+        when(bookingRepository.saveWithEvent(bookingWithoutId)).thenReturn(booking);
 
         BookingDto actualResult = service.addBooking(2L, bookingDtoRequest);
 
         assertEquals(expectedBookingDto, actualResult);
-        verify(bookingRepository, times(1)).save(bookingWithoutId);
+        verify(bookingRepository, times(1)).saveWithEvent(bookingWithoutId);
+        verify(itemResponseCache, times(1)).evictOwnerView(id);
     }
 
     @Test
@@ -90,7 +113,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(2L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotExistsException.class, () -> service.addBooking(2L, bookingDtoRequest));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).saveWithEvent(any());
     }
 
 //    @Test
@@ -109,7 +132,7 @@ class BookingServiceImplTest {
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
 
         assertThrows(ItemNotAvailableException.class, () -> service.addBooking(2L, bookingDtoRequest));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).saveWithEvent(any());
     }
 
     @Test
@@ -119,35 +142,78 @@ class BookingServiceImplTest {
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
 
         assertThrows(ItemAccessErrorException.class, () -> service.addBooking(2L, bookingDtoRequest));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).saveWithEvent(any());
+    }
+
+    @Test
+    void addBooking_whenOverlapsApprovedBooking_thenBookingConflictException() {
+        Booking approved = new Booking(2L, item, user, Status.APPROVED, start.minusHours(1), start.plusHours(1));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(bookingRepository.findApprovedOverlap(id, start, end, null)).thenReturn(Optional.of(approved));
+
+        assertThrows(BookingConflictException.class, () -> service.addBooking(2L, bookingDtoRequest));
+        verify(bookingRepository, never()).saveWithEvent(any());
     }
 
     @Test
     void considerationBooking_whenApprove_thenReturnBooking() {
-        Booking bookingApproved = new Booking(id, item, booker, Status.APPROVED, start, end);
         expectedBookingDto.setStatus(Status.APPROVED);
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(bookingApproved)).thenReturn(bookingApproved);
+        when(bookingRepository.updateStatusIfCurrent(id, Status.APPROVED, Status.WAITING)).thenReturn(1);
 
         BookingDto actualResult = service.considerationBooking(1L, id, true);
 
         assertEquals(expectedBookingDto, actualResult);
-        verify(bookingRepository, times(1)).save(bookingApproved);
+        verify(bookingRepository, times(1)).updateStatusIfCurrent(id, Status.APPROVED, Status.WAITING);
+        verify(itemResponseCache, times(1)).evictOwnerView(id);
+        verify(itemAvailabilityCache, times(1)).evict(id);
     }
 
     @Test
     void considerationBooking_whenRejected_thenReturnBooking() {
-        Booking bookingRejected = new Booking(id, item, booker, Status.REJECTED, start, end);
         expectedBookingDto.setStatus(Status.REJECTED);
         when(userRepository.findById(1L)).thenReturn(Optional.of(user));
         when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
-        when(bookingRepository.save(bookingRejected)).thenReturn(bookingRejected);
+        when(bookingRepository.updateStatusIfCurrent(id, Status.REJECTED, Status.WAITING)).thenReturn(1);
 
         BookingDto actualResult = service.considerationBooking(1L, id, false);
 
         assertEquals(expectedBookingDto, actualResult);
-        verify(bookingRepository, times(1)).save(bookingRejected);
+        verify(bookingRepository, times(1)).updateStatusIfCurrent(id, Status.REJECTED, Status.WAITING);
+    }
+
+    @Test
+    void considerationBooking_whenConcurrentlyConsidered_thenBookingAccessErrorException() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStatusIfCurrent(id, Status.APPROVED, Status.WAITING)).thenReturn(0);
+
+        assertThrows(BookingAccessErrorException.class, () -> service.considerationBooking(1L, id, true));
+        verify(itemResponseCache, never()).evictOwnerView(any());
+        verify(itemAvailabilityCache, never()).evict(any());
+    }
+
+    @Test
+    void considerationBooking_whenApproveOverlapsApprovedBooking_thenBookingConflictException() {
+        Booking approved = new Booking(2L, item, user, Status.APPROVED, start.minusHours(1), start.plusHours(1));
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
+        when(bookingRepository.findApprovedOverlap(id, start, end, id)).thenReturn(Optional.of(approved));
+
+        assertThrows(BookingConflictException.class, () -> service.considerationBooking(1L, id, true));
+        verify(bookingRepository, never()).updateStatusIfCurrent(any(), any(), any());
+    }
+
+    @Test
+    void considerationBooking_whenExclusionConstraintViolated_thenBookingConflictException() {
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
+        when(bookingRepository.updateStatusIfCurrent(id, Status.APPROVED, Status.WAITING))
+                .thenThrow(new DataIntegrityViolationException("ex_bookings_item_period"));
+
+        assertThrows(BookingConflictException.class, () -> service.considerationBooking(1L, id, true));
     }
 
     @Test
@@ -155,7 +221,7 @@ class BookingServiceImplTest {
         when(userRepository.findById(1L)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotExistsException.class, () -> service.considerationBooking(1L, id, false));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).updateStatusIfCurrent(any(), any(), any());
     }
 
     @Test
@@ -164,7 +230,7 @@ class BookingServiceImplTest {
         when(bookingRepository.findById(id)).thenReturn(Optional.empty());
 
         assertThrows(EntityNotExistsException.class, () -> service.considerationBooking(2L, id, false));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).updateStatusIfCurrent(any(), any(), any());
     }
 
     @Test
@@ -173,7 +239,7 @@ class BookingServiceImplTest {
         when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
 
         assertThrows(ItemAccessErrorException.class, () -> service.considerationBooking(2L, id, false));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).updateStatusIfCurrent(any(), any(), any());
     }
 
     @Test
@@ -183,9 +249,127 @@ class BookingServiceImplTest {
         when(bookingRepository.findById(id)).thenReturn(Optional.of(booking));
 
         assertThrows(BookingAccessErrorException.class, () -> service.considerationBooking(2L, id, false));
-        verify(bookingRepository, never()).save(any());
+        verify(bookingRepository, never()).updateStatusIfCurrent(any(), any(), any());
+    }
+
+
+    @Test
+    void considerationBookings_whenMixedDecisions_thenOutcomePerBooking() {
+        Item foreignItem = new Item(2L, booker, "item2", "useful2", true, List.of(), null);
+        Booking rejected = new Booking(2L, item, booker, Status.WAITING, start.plusDays(5), end.plusDays(5));
+        Booking foreign = new Booking(3L, foreignItem, user, Status.WAITING, start, end);
+        Booking decided = new Booking(4L, item, booker, Status.APPROVED, start.minusDays(5), end.minusDays(5));
+        List<BookingDecision> decisions = new ArrayList<>(List.of(new BookingDecision(1L, true),
+                new BookingDecision(2L, false), new BookingDecision(3L, true), new BookingDecision(4L, false),
+                new BookingDecision(5L, true), new BookingDecision(1L, false), new BookingDecision(6L, null)));
+        decisions.add(null);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByIdIn(Set.of(1L, 2L, 3L, 4L, 5L, 6L)))
+                .thenReturn(List.of(booking, rejected, foreign, decided));
+        when(bookingRepository.findApprovedInPeriod(Set.of(1L), start, end)).thenReturn(List.of());
+        when(bookingRepository.updateStatusesIfCurrent(Map.of(1L, Status.APPROVED, 2L, Status.REJECTED),
+                Status.WAITING)).thenReturn(Set.of(1L, 2L));
+
+        List<BookingBatchResult> result = service.considerationBookings(1L, decisions);
+
+        assertEquals(List.of(BookingBatchResult.considered(0, 1L, Status.APPROVED),
+                BookingBatchResult.considered(1, 2L, Status.REJECTED),
+                BookingBatchResult.failed(2, 3L, "incorrect owner"),
+                BookingBatchResult.failed(3, 4L, "booking status already changed"),
+                BookingBatchResult.failed(4, 5L, "such booking not registered"),
+                BookingBatchResult.failed(5, 1L, "booking is repeated in the batch"),
+                BookingBatchResult.failed(6, 6L, "booking id and decision must be specified"),
+                BookingBatchResult.failed(7, null, "booking id and decision must be specified")), result);
+        verify(itemResponseCache, times(1)).evictOwnerView(1L);
+        verify(itemAvailabilityCache, times(1)).evict(1L);
+    }
+
+    @Test
+    void considerationBookings_whenApprovalsOverlap_thenLaterApprovalFailed() {
+        Booking overlapping = new Booking(5L, item, booker, Status.WAITING, start.plusHours(1), end.plusHours(1));
+        Booking late = new Booking(6L, item, booker, Status.WAITING, start.plusDays(10), end.plusDays(10));
+        Booking approved = new Booking(9L, item, user, Status.APPROVED, start.plusDays(10).minusHours(1),
+                start.plusDays(10).plusHours(1));
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, Status.APPROVED);
+        statuses.put(5L, Status.APPROVED);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByIdIn(Set.of(1L, 5L, 6L))).thenReturn(List.of(booking, overlapping, late));
+        when(bookingRepository.findApprovedInPeriod(Set.of(1L), start, end.plusDays(10)))
+                .thenReturn(List.of(approved));
+        when(bookingRepository.updateStatusesIfCurrent(statuses, Status.WAITING)).thenReturn(Set.of(1L));
+        when(bookingRepository.findAllByIdIn(Set.of(5L))).thenReturn(List.of(overlapping));
+
+        List<BookingBatchResult> result = service.considerationBookings(1L, List.of(new BookingDecision(1L, true),
+                new BookingDecision(5L, true), new BookingDecision(6L, true)));
+
+        assertEquals(BookingBatchResult.considered(0, 1L, Status.APPROVED), result.get(0));
+        assertEquals(BookingBatchResult.failed(1, 5L, "the item is already booked for this period"), result.get(1));
+        assertEquals(BookingBatchResult.failed(2, 6L, "the item is already booked from " + approved.getStart()
+                + " to " + approved.getEnd()), result.get(2));
     }
 
+    @Test
+    void considerationBookings_whenEarlierApprovalNotApplied_thenOverlappingApprovalApplied() {
+        Booking overlapping = new Booking(5L, item, booker, Status.WAITING, start.plusHours(1), end.plusHours(1));
+        Booking cancelled = new Booking(1L, item, booker, Status.CANCELED, start, end);
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, Status.APPROVED);
+        statuses.put(5L, Status.APPROVED);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByIdIn(Set.of(1L, 5L))).thenReturn(List.of(booking, overlapping));
+        when(bookingRepository.findApprovedInPeriod(Set.of(1L), start, end.plusHours(1))).thenReturn(List.of());
+        when(bookingRepository.updateStatusesIfCurrent(statuses, Status.WAITING)).thenReturn(Set.of(5L));
+        when(bookingRepository.findAllByIdIn(Set.of(1L))).thenReturn(List.of(cancelled));
+
+        List<BookingBatchResult> result = service.considerationBookings(1L, List.of(new BookingDecision(1L, true),
+                new BookingDecision(5L, true)));
+
+        assertEquals(List.of(BookingBatchResult.failed(0, 1L, "booking status already changed"),
+                BookingBatchResult.considered(1, 5L, Status.APPROVED)), result);
+    }
+
+    @Test
+    void considerationBookings_whenConcurrentlyConsidered_thenFailedOutcome() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByIdIn(Set.of(1L))).thenReturn(List.of(booking));
+        when(bookingRepository.updateStatusesIfCurrent(Map.of(1L, Status.REJECTED), Status.WAITING))
+                .thenReturn(Set.of());
+
+        List<BookingBatchResult> result = service.considerationBookings(1L, List.of(new BookingDecision(1L, false)));
+
+        assertEquals(List.of(BookingBatchResult.failed(0, 1L, "booking status already changed")), result);
+        verify(bookingRepository, never()).findApprovedInPeriod(any(), any(), any());
+        verify(itemResponseCache, never()).evictOwnerView(any());
+    }
+
+    @Test
+    void considerationBookings_whenApprovalViolatesConstraint_thenOnlyThatBookingFailed() {
+        Booking rejected = new Booking(5L, item, booker, Status.WAITING, start.plusDays(10), end.plusDays(10));
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, Status.APPROVED);
+        statuses.put(5L, Status.REJECTED);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findAllByIdIn(Set.of(1L, 5L))).thenReturn(List.of(booking, rejected));
+        when(bookingRepository.findApprovedInPeriod(Set.of(1L), start, end)).thenReturn(List.of());
+        when(bookingRepository.updateStatusesIfCurrent(statuses, Status.WAITING)).thenReturn(Set.of(5L));
+        when(bookingRepository.findAllByIdIn(Set.of(1L))).thenReturn(List.of(booking));
+
+        List<BookingBatchResult> result = service.considerationBookings(1L, List.of(new BookingDecision(1L, true),
+                new BookingDecision(5L, false)));
+
+        assertEquals(List.of(BookingBatchResult.failed(0, 1L, "the item is already booked for this period"),
+                BookingBatchResult.considered(1, 5L, Status.REJECTED)), result);
+    }
+
+    @Test
+    void considerationBookings_whenUserNotFounded_thenEntityNotExistsException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class,
+                () -> service.considerationBookings(1L, List.of(new BookingDecision(1L, true))));
+        verify(bookingRepository, never()).updateStatusesIfCurrent(any(), any());
+    }
 
     @Test
     void getBooking_whenIsOk_thenReturnBooking() {
@@ -212,6 +396,17 @@ class BookingServiceImplTest {
         assertThrows(EntityNotExistsException.class, () -> service.getBooking(2L, id));
     }
 
+    @Test
+    void getBooking_whenBookingArchived_thenReturnArchivedBooking() {
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(bookingRepository.findById(id)).thenReturn(Optional.empty());
+        when(bookingRepository.findArchivedById(id)).thenReturn(Optional.of(booking));
+
+        BookingDto actualResult = service.getBooking(2L, id);
+
+        assertEquals(expectedBookingDto, actualResult);
+    }
+
     @Test
     void getBooking_whenUserNotBooker_thenEntityNotExistsException() {
         User notBooker = new User(3L, "not@booker.ru", "not");
@@ -226,9 +421,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_Id(2L, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.ALL)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.ALL, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.ALL), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -238,9 +434,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_IdAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.CURRENT)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.CURRENT, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.CURRENT), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -250,9 +447,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_IdAndStartIsAfter(any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.FUTURE)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.FUTURE, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.FUTURE), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -262,9 +460,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_IdAndEndIsBefore(any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.PAST)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.PAST, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.PAST), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -274,9 +473,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_IdAndStatusIs(2L, Status.WAITING, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.WAITING)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.WAITING, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.WAITING), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -286,21 +486,72 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByBooker_IdAndStatusIs(2L, Status.REJECTED, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.REJECTED)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getALLBookings(2L, State.REJECTED, pageable);
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.REJECTED), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
 
 
+    @Test
+    void getALLBookings_whenSeekRequest_ThenFindAfterCursor() {
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(LocalDateTime.now(), 5L), 10, sort);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.BOOKER), eq(BookingFilter.of(State.ALL)), any(),
+                eq(seekRequest))).thenReturn(List.of(bookingView));
+
+        List<BookingDto> result = service.getALLBookings(2L, BookingFilter.of(State.ALL), seekRequest);
+
+        assertEquals(List.of(expectedBookingDto), result);
+    }
+
     @Test
     void getALLBookings_whenUserNotFounded_thenEntityNotExistsException() {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(1L)).thenReturn(false);
 
-        assertThrows(EntityNotExistsException.class, () -> service.getALLBookings(1L, State.WAITING, pageable));
+        assertThrows(EntityNotExistsException.class,
+                () -> service.getALLBookings(1L, BookingFilter.of(State.WAITING), pageable));
+    }
+
+    @Test
+    void getAllBookingsByOwner_whenSeekRequest_ThenFindAfterCursor() {
+        Sort sort = Sort.by("start").descending().and(Sort.by("id").descending());
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(LocalDateTime.now(), 5L), 10, sort);
+        when(userRepository.existsById(2L)).thenReturn(true);
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.PAST)), any(),
+                eq(seekRequest))).thenReturn(List.of(bookingView));
+
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.PAST), seekRequest);
+
+        assertEquals(List.of(expectedBookingDto), result);
+    }
+
+    @Test
+    void exportBookingsByOwner_whenIsOk_thenViewsMappedToBookingsDto() {
+        when(userRepository.existsById(2L)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<BookingView> consumer = invocation.getArgument(1);
+            consumer.accept(bookingView);
+            return null;
+        }).when(bookingRepository).exportViewsByOwnerId(eq(2L), any());
+        List<BookingDto> exported = new ArrayList<>();
+
+        service.exportBookingsByOwner(2L, exported::add);
+
+        assertEquals(List.of(expectedBookingDto), exported);
+    }
+
+    @Test
+    void exportBookingsByOwner_whenUserNotFound_thenEntityNotExistsException() {
+        when(userRepository.existsById(2L)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class, () -> service.exportBookingsByOwner(2L, bookingDto -> { }));
+        verify(bookingRepository, never()).exportViewsByOwnerId(any(), any());
     }
 
     @Test
@@ -308,9 +559,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_Id(2L, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.ALL)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.ALL, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.ALL), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -320,9 +572,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_IdAndStartIsBeforeAndEndIsAfter(any(), any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.CURRENT)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.CURRENT, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.CURRENT), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -332,9 +585,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_IdAndStartIsAfter(any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.FUTURE)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.FUTURE, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.FUTURE), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -344,9 +598,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_IdAndEndIsBefore(any(), any(), any())).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.PAST)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.PAST, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.PAST), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -356,9 +611,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_IdAndStatusIs(2L, Status.WAITING, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.WAITING)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.WAITING, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.WAITING), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -368,9 +624,10 @@ class BookingServiceImplTest {
         Sort sort = Sort.by("start").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(2L)).thenReturn(true);
-        when(bookingRepository.findAllByItem_User_IdAndStatusIs(2L, Status.REJECTED, pageable)).thenReturn(List.of(booking));
+        when(bookingRepository.findAllByFilter(eq(2L), eq(Role.OWNER), eq(BookingFilter.of(State.REJECTED)), any(),
+                eq(pageable))).thenReturn(List.of(bookingView));
 
-        List<BookingDto> result = service.getAllBookingsByOwner(2L, State.REJECTED, pageable);
+        List<BookingDto> result = service.getAllBookingsByOwner(2L, BookingFilter.of(State.REJECTED), pageable);
 
         assertEquals(List.of(expectedBookingDto), result);
     }
@@ -382,7 +639,8 @@ class BookingServiceImplTest {
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(userRepository.existsById(1L)).thenReturn(false);
 
-        assertThrows(EntityNotExistsException.class, () -> service.getAllBookingsByOwner(1L, State.WAITING, pageable));
+        assertThrows(EntityNotExistsException.class,
+                () -> service.getAllBookingsByOwner(1L, BookingFilter.of(State.WAITING), pageable));
     }
 
 }
\ No newline at end of file
@@ -10,6 +10,7 @@ import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareits.booking.dto.BookingDto;
 import ru.practicum.shareits.booking.dto.BookingDtoRequest;
+import ru.practicum.shareits.booking.dto.BookingFilter;
 import ru.practicum.shareits.booking.enums.State;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.common.model.FromSizeRequest;
@@ -122,7 +123,7 @@ class BookingServiceImplTestIT {
         bookingDtoRequest2.setEnd(LocalDateTime.now().plusDays(7));
         bookingService.addBooking(2L, bookingDtoRequest2);
 
-        List<BookingDto> allBookings = bookingService.getALLBookings(2L, State.WAITING, pageable);
+        List<BookingDto> allBookings = bookingService.getALLBookings(2L, BookingFilter.of(State.WAITING), pageable);
 
         assertEquals(2, allBookings.size());
     }
@@ -156,7 +157,8 @@ class BookingServiceImplTestIT {
         bookingDtoRequest2.setEnd(LocalDateTime.now().plusDays(7));
         bookingService.addBooking(2L, bookingDtoRequest2);
 
-        List<BookingDto> allBookings = bookingService.getAllBookingsByOwner(1L, State.WAITING, pageable);
+        List<BookingDto> allBookings = bookingService.getAllBookingsByOwner(1L, BookingFilter.of(State.WAITING),
+                pageable);
 
         assertEquals(2, allBookings.size());
     }
@@ -0,0 +1,109 @@
+package ru.practicum.shareits.booking.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareits.booking.enums.BookingEventType;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.model.BookingEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+class BookingEventRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+
+    private LocalDateTime time;
+    private final List<Long> eventIds = new ArrayList<>();
+
+    @BeforeEach
+    public void setUp() {
+        time = LocalDateTime.now();
+        for (long bookingId = 1; bookingId <= 3; bookingId++) {
+            BookingEvent event = new BookingEvent(null, BookingEventType.CREATED, bookingId, 1L, 1L, 2L,
+                    Status.WAITING, time.plusDays(1), time.plusDays(2), time, null);
+            eventIds.add(entityManager.persistAndGetId(event, Long.class));
+        }
+        entityManager.flush();
+    }
+
+    @DirtiesContext
+    @Test
+    void dispatchPending_thenOldestPendingEventsDispatchedInBatches() {
+        List<BookingEvent> received = new ArrayList<>();
+
+        assertEquals(2, bookingEventRepository.dispatchPending(2, time, received::addAll));
+        assertEquals(1, bookingEventRepository.dispatchPending(2, time, received::addAll));
+        assertEquals(0, bookingEventRepository.dispatchPending(2, time, received::addAll));
+
+        assertEquals(eventIds, received.stream().map(BookingEvent::getId).collect(Collectors.toList()));
+        entityManager.flush();
+        entityManager.clear();
+        assertNotNull(bookingEventRepository.findById(eventIds.get(0)).orElseThrow().getDispatched());
+    }
+
+    @DirtiesContext
+    @Test
+    void dispatchPending_whenConsumerFails_thenEventsStayPending() {
+        assertThrows(UncheckedIOException.class, () -> bookingEventRepository.dispatchPending(10, time, events -> {
+            throw new UncheckedIOException(new IOException("sink unavailable"));
+        }));
+
+        assertEquals(3, bookingEventRepository.dispatchPending(10, time, events -> {
+        }));
+    }
+
+    @DirtiesContext
+    @Test
+    void deleteDispatchedBefore_thenOnlyOldDispatchedEventsDeleted() {
+        bookingEventRepository.dispatchPending(1, time.minusDays(2), events -> {
+        });
+        bookingEventRepository.dispatchPending(1, time, events -> {
+        });
+        entityManager.flush();
+
+        assertEquals(1, bookingEventRepository.deleteDispatchedBefore(time.minusDays(1)));
+        assertEquals(2, bookingEventRepository.count());
+    }
+
+    @DirtiesContext
+    @Test
+    void findDispatchedAfter_thenEventsOrderedByDispatchTimeNotId() {
+        LocalDateTime dispatched = time.truncatedTo(ChronoUnit.SECONDS);
+        bookingEventRepository.dispatchPending(1, dispatched.plusSeconds(2), events -> {
+        });
+        bookingEventRepository.dispatchPending(1, dispatched.plusSeconds(1), events -> {
+        });
+        bookingEventRepository.dispatchPending(1, dispatched.plusSeconds(1), events -> {
+        });
+        entityManager.flush();
+
+        List<Long> all = bookingEventRepository.findDispatchedAfter(dispatched, 0L, PageRequest.of(0, 10)).stream()
+                .map(BookingEvent::getId)
+                .collect(Collectors.toList());
+        List<Long> afterSecond = bookingEventRepository.findDispatchedByUserIdAfter(2L, dispatched.plusSeconds(1),
+                        eventIds.get(1), PageRequest.of(0, 10)).stream()
+                .map(BookingEvent::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(List.of(eventIds.get(1), eventIds.get(2), eventIds.get(0)), all);
+        assertEquals(List.of(eventIds.get(2), eventIds.get(0)), afterSecond);
+    }
+}
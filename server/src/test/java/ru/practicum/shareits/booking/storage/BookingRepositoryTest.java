@@ -1,15 +1,32 @@
 package ru.practicum.shareits.booking.storage;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareits.booking.enums.BookingEventType;
 import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.dto.BookingFilter;
+import ru.practicum.shareits.booking.dto.BookingView;
+import ru.practicum.shareits.booking.enums.Role;
+import ru.practicum.shareits.booking.enums.State;
 import ru.practicum.shareits.booking.model.Booking;
+import ru.practicum.shareits.booking.model.BookingEvent;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
+import ru.practicum.shareits.item.dto.TimeInterval;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.item.storage.ItemRepository;
 import ru.practicum.shareits.request.model.ItemRequest;
@@ -17,17 +34,30 @@ import ru.practicum.shareits.request.storage.ItemRequestRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static ru.practicum.shareits.booking.enums.Status.APPROVED;
 import static ru.practicum.shareits.booking.enums.Status.WAITING;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class BookingRepositoryTest {
 
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
@@ -40,6 +70,15 @@ class BookingRepositoryTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private BookingEventRepository bookingEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
 
     private LocalDateTime time;
     private final Sort sort = Sort.by("start").descending();
@@ -97,8 +136,9 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByBooker_Id() {
-        List<Booking> result = bookingRepository.findAllByBooker_Id(2L, pageable);
+    void findAllByFilter_whenBookerAndStateAll() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.ALL), time,
+                pageable);
 
         assertEquals(3, result.size());
         assertEquals(2, result.get(0).getId());
@@ -106,17 +146,19 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByBooker_IdAndStartIsBeforeAndEndIsAfter() {
-        List<Booking> result = bookingRepository.findAllByBooker_IdAndStartIsAfter(2L, time, pageable);
+    void findAllByFilter_whenBookerAndStateCurrent() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.CURRENT),
+                time.plusDays(4), pageable);
 
-        assertEquals(2, result.size());
+        assertEquals(1, result.size());
         assertEquals(2, result.get(0).getId());
     }
 
     @DirtiesContext
     @Test
-    void findAllByBooker_IdAndStartIsAfter() {
-        List<Booking> result = bookingRepository.findAllByBooker_IdAndStartIsAfter(2L, time, pageable);
+    void findAllByFilter_whenBookerAndStateFuture() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.FUTURE),
+                time, pageable);
 
         assertEquals(2, result.size());
         assertEquals(2, result.get(0).getId());
@@ -124,8 +166,9 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByBooker_IdAndEndIsBefore() {
-        List<Booking> result = bookingRepository.findAllByBooker_IdAndEndIsBefore(2L, time, pageable);
+    void findAllByFilter_whenBookerAndStatePast() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.PAST),
+                time, pageable);
 
         assertEquals(1, result.size());
         assertEquals(4, result.get(0).getId());
@@ -133,17 +176,19 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByBooker_IdAndStatusIs() {
-        List<Booking> result = bookingRepository.findAllByBooker_IdAndStatusIs(2L, APPROVED, pageable);
+    void findAllByFilter_whenBookerAndStateWaiting() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.WAITING),
+                time, pageable);
 
-        assertEquals(1, result.size());
-        assertEquals(4, result.get(0).getId());
+        assertEquals(2, result.size());
+        assertEquals(2, result.get(0).getId());
     }
 
     @DirtiesContext
     @Test
-    void findAllByItem_User_Id() {
-        List<Booking> result = bookingRepository.findAllByItem_User_Id(1L, pageable);
+    void findAllByFilter_whenOwnerAndStateAll() {
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.ALL), time,
+                pageable);
 
         assertEquals(2, result.size());
         assertEquals(2, result.get(0).getId());
@@ -151,9 +196,9 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByItem_User_IdAndStartIsBeforeAndEndIsAfter() {
-        List<Booking> result = bookingRepository
-                .findAllByItem_User_IdAndStartIsBeforeAndEndIsAfter(1L, time.plusDays(4), time.plusDays(4), pageable);
+    void findAllByFilter_whenOwnerAndStateCurrent() {
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.CURRENT),
+                time.plusDays(4), pageable);
 
         assertEquals(1, result.size());
         assertEquals(2, result.get(0).getId());
@@ -161,8 +206,9 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByItem_User_IdAndStartIsAfter() {
-        List<Booking> result = bookingRepository.findAllByItem_User_IdAndStartIsAfter(1L, time, pageable);
+    void findAllByFilter_whenOwnerAndStateFuture() {
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.FUTURE),
+                time, pageable);
 
         assertEquals(2, result.size());
         assertEquals(2, result.get(0).getId());
@@ -170,8 +216,9 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByItem_User_IdAndEndIsBefore() {
-        List<Booking> result = bookingRepository.findAllByItem_User_IdAndStartIsAfter(1L, time, pageable);
+    void findAllByFilter_whenOwnerAndStatePast() {
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.PAST),
+                time.plusDays(10), pageable);
 
         assertEquals(2, result.size());
         assertEquals(2, result.get(0).getId());
@@ -179,13 +226,135 @@ class BookingRepositoryTest {
 
     @DirtiesContext
     @Test
-    void findAllByItem_User_IdAndStatusIs() {
-        List<Booking> result = bookingRepository.findAllByItem_User_IdAndStatusIs(2L, WAITING, pageable);
+    void findAllByFilter_whenOwnerAndStateWaiting() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.OWNER, BookingFilter.of(State.WAITING),
+                time, pageable);
 
         assertEquals(1, result.size());
         assertEquals(3, result.get(0).getId());
     }
 
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenItemId_thenOnlyItemBookings() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER,
+                new BookingFilter(State.ALL, 4L, null, null), time, pageable);
+
+        assertEquals(1, result.size());
+        assertEquals(4, result.get(0).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenDateRange_thenOnlyIntersectingBookings() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER,
+                new BookingFilter(State.ALL, null, time.plusDays(3), time.plusDays(4)), time, pageable);
+
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenOffset_thenSkipFirstRows() {
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.ALL), time,
+                FromSizeRequest.of(1, 1, sort));
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenSeekRequestAndBooker() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking last = bookingRepository.findById(2L).orElseThrow();
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(last.getStart(), last.getId()), 10, sort);
+
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.ALL), time,
+                seekRequest);
+
+        assertEquals(2, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(4, result.get(1).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenSeekRequestAndOwnerAndStateFuture() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking last = bookingRepository.findById(2L).orElseThrow();
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(last.getStart(), last.getId()), 10, sort);
+
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.FUTURE),
+                time, seekRequest);
+
+        assertEquals(1, result.size());
+        assertEquals(1, result.get(0).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenSeekRequestAndSameStart_thenSeekById() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking last = bookingRepository.findById(3L).orElseThrow();
+        Booking sameStart = bookingRepository.findById(2L).orElseThrow();
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(sameStart.getStart(), last.getId()), 1, sort);
+
+        List<BookingView> result = bookingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.ALL), time,
+                seekRequest);
+
+        assertEquals(1, result.size());
+        assertEquals(2, result.get(0).getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenPageRead_thenSingleQuery() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        List<BookingView> result = bookingRepository.findAllByFilter(1L, Role.OWNER, BookingFilter.of(State.ALL),
+                time, pageable);
+
+        assertEquals(2, result.size());
+        assertEquals("item", result.get(0).getItemName());
+        assertEquals("mail2@ya.ru", result.get(0).getBookerEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void findById_thenItemOwnerAndBookerFetchedInSingleQuery() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        Booking result = bookingRepository.findById(3L).orElseThrow();
+
+        assertEquals("item4", result.getItem().getName());
+        assertEquals(2L, result.getItem().getUser().getId());
+        assertEquals("user", result.getBooker().getName());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void findLastAndNextBookingsByItemIds_thenSingleQuery() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        List<Booking> result = bookingRepository.findLastAndNextBookingsByItemIds(List.of(1L, 4L), time);
+
+        assertEquals(3, result.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
     @DirtiesContext
     @Test
     void findFirstByItemIdAndStartBeforeOrderByStart() {
@@ -202,6 +371,17 @@ class BookingRepositoryTest {
         assertEquals(3, result.getId());
     }
 
+    @DirtiesContext
+    @Test
+    void findLastAndNextBookingsByItemIds() {
+        List<Booking> result = bookingRepository.findLastAndNextBookingsByItemIds(List.of(1L, 4L), time);
+
+        assertEquals(3, result.size());
+        assertEquals(1, result.get(0).getId());
+        assertEquals(3, result.get(1).getId());
+        assertEquals(4, result.get(2).getId());
+    }
+
     @DirtiesContext
     @Test
     void existsByBooker_IdAndEndIsBeforeAndStatusIs_true() {
@@ -217,4 +397,377 @@ class BookingRepositoryTest {
 
         assertFalse(result);
     }
-}
\ No newline at end of file
+
+    @DirtiesContext
+    @Test
+    void exportViewsByOwnerId_thenAllOwnerBookingsNewestFirst() {
+        List<BookingView> result = new ArrayList<>();
+
+        bookingRepository.exportViewsByOwnerId(1L, result::add);
+
+        assertEquals(List.of(2L, 1L), result.stream().map(BookingView::getId).collect(Collectors.toList()));
+        assertEquals("item", result.get(0).getItemName());
+    }
+
+    @DirtiesContext
+    @Test
+    void findApprovedOverlap_whenPeriodsIntersect_thenReturnApprovedBooking() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking approved = bookingRepository.findById(4L).orElseThrow();
+
+        Optional<Booking> result = bookingRepository.findApprovedOverlap(approved.getItem().getId(),
+                approved.getStart().plusHours(1), approved.getEnd().plusDays(1), null);
+
+        assertEquals(4L, result.orElseThrow().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findApprovedOverlap_whenPeriodsOnlyTouch_thenEmpty() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking approved = bookingRepository.findById(4L).orElseThrow();
+
+        Optional<Booking> result = bookingRepository.findApprovedOverlap(approved.getItem().getId(),
+                approved.getEnd(), approved.getEnd().plusDays(1), null);
+
+        assertTrue(result.isEmpty());
+    }
+
+    @DirtiesContext
+    @Test
+    void findApprovedOverlap_whenOnlyWaitingOrExcludedBookingsIntersect_thenEmpty() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking approved = bookingRepository.findById(4L).orElseThrow();
+        Booking waiting = bookingRepository.findById(1L).orElseThrow();
+
+        assertTrue(bookingRepository.findApprovedOverlap(approved.getItem().getId(), approved.getStart(),
+                approved.getEnd(), 4L).isEmpty());
+        assertTrue(bookingRepository.findApprovedOverlap(waiting.getItem().getId(), waiting.getStart(),
+                waiting.getEnd(), null).isEmpty());
+    }
+
+    @DirtiesContext
+    @Test
+    void findIntervalsByItemIdAndStatus_thenApprovedBookingsIntersectingRange() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking approved = bookingRepository.findById(4L).orElseThrow();
+
+        List<TimeInterval> result = bookingRepository.findIntervalsByItemIdAndStatus(4L, APPROVED,
+                approved.getEnd().minusHours(1), approved.getEnd().plusDays(30));
+
+        assertEquals(List.of(new TimeInterval(approved.getStart(), approved.getEnd())), result);
+        assertTrue(bookingRepository.findIntervalsByItemIdAndStatus(4L, APPROVED, approved.getEnd(),
+                approved.getEnd().plusDays(30)).isEmpty());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusIfCurrent_whenStatusAlreadyChanged_thenNothingUpdated() {
+        entityManager.flush();
+
+        assertEquals(1, bookingRepository.updateStatusIfCurrent(1L, APPROVED, WAITING));
+        assertEquals(0, bookingRepository.updateStatusIfCurrent(1L, Status.REJECTED, WAITING));
+        assertEquals(APPROVED, bookingRepository.findById(1L).orElseThrow().getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusesIfCurrent_thenOnlyWaitingBookingsUpdated() {
+        entityManager.flush();
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, APPROVED);
+        statuses.put(2L, Status.REJECTED);
+        statuses.put(4L, Status.REJECTED);
+
+        Set<Long> result = bookingRepository.updateStatusesIfCurrent(statuses, WAITING);
+        entityManager.clear();
+
+        assertEquals(Set.of(1L, 2L), result);
+        assertEquals(APPROVED, bookingRepository.findById(1L).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(2L).orElseThrow().getStatus());
+        assertEquals(APPROVED, bookingRepository.findById(4L).orElseThrow().getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusIfCurrent_whenApprovedBookingOverlaps_thenConflict() {
+        Booking overlapping = bookingRepository.save(new Booking(null, itemRepository.findById(1L).orElseThrow(),
+                userRepository.findById(2L).orElseThrow(), WAITING, time.plusDays(1).plusHours(12),
+                time.plusDays(3)));
+        entityManager.flush();
+
+        assertEquals(1, bookingRepository.updateStatusIfCurrent(1L, APPROVED, WAITING));
+        assertThrows(DataIntegrityViolationException.class,
+                () -> bookingRepository.updateStatusIfCurrent(overlapping.getId(), APPROVED, WAITING));
+        assertEquals(WAITING, bookingRepository.findById(overlapping.getId()).orElseThrow().getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusesIfCurrent_whenApprovalsOverlap_thenOnlyFirstApproved() {
+        Booking overlapping = bookingRepository.save(new Booking(null, itemRepository.findById(1L).orElseThrow(),
+                userRepository.findById(2L).orElseThrow(), WAITING, time.plusDays(1).plusHours(12),
+                time.plusDays(3)));
+        entityManager.flush();
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, APPROVED);
+        statuses.put(overlapping.getId(), APPROVED);
+        statuses.put(3L, APPROVED);
+
+        Set<Long> result = bookingRepository.updateStatusesIfCurrent(statuses, WAITING);
+        entityManager.clear();
+
+        assertEquals(Set.of(1L, 3L), result);
+        assertEquals(WAITING, bookingRepository.findById(overlapping.getId()).orElseThrow().getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusesIfCurrent_whenRowViolatesConstraint_thenOtherRowsUpdated() {
+        entityManager.flush();
+        entityManager.getEntityManager().createNativeQuery("alter table bookings add constraint ck_bookings_test " +
+                "check (booking_id <> 1 or status <> 'APPROVED')").executeUpdate();
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(1L, APPROVED);
+        statuses.put(2L, Status.REJECTED);
+
+        Set<Long> result = bookingRepository.updateStatusesIfCurrent(statuses, WAITING);
+        List<BookingEvent> events = events();
+        entityManager.clear();
+
+        assertEquals(Set.of(2L), result);
+        assertEquals(WAITING, bookingRepository.findById(1L).orElseThrow().getStatus());
+        assertEquals(Status.REJECTED, bookingRepository.findById(2L).orElseThrow().getStatus());
+        assertEquals(1, events.size());
+        assertEquals(2L, events.get(0).getBookingId());
+    }
+
+    @DirtiesContext
+    @Test
+    void saveWithEvent_thenCreatedEventRecorded() {
+        Item item = itemRepository.findById(1L).orElseThrow();
+        User booker = userRepository.findById(2L).orElseThrow();
+
+        Booking saved = bookingRepository.saveWithEvent(new Booking(null, item, booker, WAITING, time.plusDays(10),
+                time.plusDays(11)));
+
+        List<BookingEvent> events = events();
+        assertEquals(1, events.size());
+        assertEquals(BookingEventType.CREATED, events.get(0).getType());
+        assertEquals(saved.getId(), events.get(0).getBookingId());
+        assertEquals(1L, events.get(0).getOwnerId());
+        assertEquals(2L, events.get(0).getBookerId());
+        assertEquals(WAITING, events.get(0).getStatus());
+        assertNull(events.get(0).getDispatched());
+    }
+
+    @DirtiesContext
+    @Test
+    void saveWithEvent_whenFutureBooking_thenItemNextBookingLinked() {
+        Item item = itemRepository.findById(1L).orElseThrow();
+        User booker = userRepository.findById(2L).orElseThrow();
+
+        Booking saved = bookingRepository.saveWithEvent(new Booking(null, item, booker, WAITING, time.minusDays(10),
+                time.minusDays(9)));
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(saved.getId(), itemRepository.findWithBookingPointersById(1L).orElseThrow()
+                .getLastBooking().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusIfCurrent_thenEventRecordedOnlyForTransition() {
+        entityManager.flush();
+
+        bookingRepository.updateStatusIfCurrent(1L, APPROVED, WAITING);
+        bookingRepository.updateStatusIfCurrent(1L, Status.REJECTED, WAITING);
+
+        List<BookingEvent> events = events();
+        assertEquals(1, events.size());
+        assertEquals(BookingEventType.STATUS_CHANGED, events.get(0).getType());
+        assertEquals(1L, events.get(0).getBookingId());
+        assertEquals(APPROVED, events.get(0).getStatus());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateStatusesIfCurrent_thenEventPerUpdatedBooking() {
+        entityManager.flush();
+        Map<Long, Status> statuses = new LinkedHashMap<>();
+        statuses.put(2L, Status.REJECTED);
+        statuses.put(4L, Status.REJECTED);
+
+        bookingRepository.updateStatusesIfCurrent(statuses, WAITING);
+
+        List<BookingEvent> events = events();
+        assertEquals(1, events.size());
+        assertEquals(2L, events.get(0).getBookingId());
+        assertEquals(Status.REJECTED, events.get(0).getStatus());
+        assertEquals(1L, events.get(0).getOwnerId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByIdIn_thenOwnersFetchedInSingleQuery() {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        List<Booking> result = bookingRepository.findAllByIdIn(List.of(1L, 3L));
+
+        assertEquals(Set.of(1L, 2L), result.stream().map(booking -> booking.getItem().getUser().getId())
+                .collect(Collectors.toSet()));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void findApprovedInPeriod_thenApprovedBookingsOfItemsIntersectingPeriod() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking approved = bookingRepository.findById(4L).orElseThrow();
+
+        List<Booking> result = bookingRepository.findApprovedInPeriod(List.of(1L, 4L), approved.getEnd().minusHours(1),
+                time.plusDays(30));
+
+        assertEquals(List.of(4L), result.stream().map(Booking::getId).collect(Collectors.toList()));
+        assertTrue(bookingRepository.findApprovedInPeriod(List.of(1L), time.minusDays(30), time.plusDays(30))
+                .isEmpty());
+    }
+
+    @DirtiesContext
+    @Test
+    void detachPartitionsBefore_whenArchivingDisabled_thenNothingDetached() {
+        BookingRepositoryCustomImpl repository = new BookingRepositoryCustomImpl(entityManager.getEntityManager(),
+                itemRepository, 500, true, false, Duration.ofHours(12));
+
+        assertTrue(repository.detachPartitionsBefore(YearMonth.now()).isEmpty());
+        assertEquals(4, bookingRepository.count());
+    }
+
+    @DirtiesContext
+    @Test
+    void createPartitions_whenPartitioningDisabled_thenPlainTableKept() {
+        assertEquals(0, bookingRepository.createPartitions(YearMonth.now(), 3));
+        assertTrue(bookingRepository.detachPartitionsBefore(YearMonth.now()).isEmpty());
+        assertEquals(4, bookingRepository.count());
+    }
+
+    @DirtiesContext
+    @Test
+    void archiveFinishedBookings_thenFinishedBookingsMovedToArchive() {
+        entityManager.flush();
+        BookingRepositoryCustom archivingRepository = archivingRepository();
+
+        assertEquals(1, archivingRepository.archiveFinishedBookings(time, 10));
+        entityManager.clear();
+
+        assertTrue(bookingRepository.findById(4L).isEmpty());
+        assertEquals(3, bookingRepository.count());
+        Booking archived = archivingRepository.findArchivedById(4L).orElseThrow();
+        assertEquals("item4", archived.getItem().getName());
+        assertEquals(APPROVED, archived.getStatus());
+        assertTrue(archivingRepository.existsArchivedByBookerIdAndStatus(2L, APPROVED));
+        assertFalse(archivingRepository.existsArchivedByBookerIdAndStatus(1L, APPROVED));
+        assertTrue(bookingRepository.findArchivedById(4L).isEmpty());
+        assertEquals(0, bookingRepository.archiveFinishedBookings(time, 10));
+    }
+
+    @DirtiesContext
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Test
+    void archiveFinishedBookings_thenItemsKeptInSecondLevelCache() {
+        itemRepository.findById(1L).orElseThrow();
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Item.class, 1L));
+
+        Integer archivedCount = new TransactionTemplate(transactionManager)
+                .execute(status -> archivingRepository().archiveFinishedBookings(time, 10));
+
+        assertEquals(1, archivedCount);
+
+        assertTrue(cache.contains(Item.class, 1L));
+    }
+
+    @DirtiesContext
+    @Test
+    void archiveFinishedBookings_whenBookingLinkedToItem_thenBookingKept() {
+        Item item = itemRepository.findById(4L).orElseThrow();
+        item.setLastBooking(bookingRepository.findById(4L).orElseThrow());
+        entityManager.flush();
+
+        assertEquals(0, archivingRepository().archiveFinishedBookings(time, 10));
+        assertTrue(bookingRepository.existsById(4L));
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenPageGoesPastHotSet_thenArchivedBookingsAppended() {
+        entityManager.flush();
+        entityManager.clear();
+        Booking waiting = bookingRepository.findById(1L).orElseThrow();
+        BookingRepositoryCustom archivingRepository = archivingRepository();
+        archivingRepository.archiveFinishedBookings(time, 10);
+        entityManager.clear();
+
+        assertEquals(List.of(2L, 1L, 4L), ids(archivingRepository.findAllByFilter(2L, Role.BOOKER,
+                BookingFilter.of(State.ALL), time, pageable)));
+        assertEquals(List.of(4L), ids(archivingRepository.findAllByFilter(2L, Role.BOOKER,
+                BookingFilter.of(State.PAST), time, pageable)));
+        assertEquals(List.of(4L), ids(archivingRepository.findAllByFilter(2L, Role.BOOKER,
+                BookingFilter.of(State.ALL), time, FromSizeRequest.of(2, 1, sort))));
+        assertEquals(List.of(4L), ids(archivingRepository.findAllByFilter(2L, Role.BOOKER,
+                BookingFilter.of(State.ALL), time,
+                SeekRequest.of(PageCursor.of(waiting.getStart(), waiting.getId()), 10, sort))));
+        assertTrue(archivingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.FUTURE), time,
+                FromSizeRequest.of(2, 1, sort)).isEmpty());
+
+        List<BookingView> exported = new ArrayList<>();
+        archivingRepository.exportViewsByOwnerId(2L, exported::add);
+        assertEquals(List.of(3L, 4L), ids(exported));
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByFilter_whenHotPageFull_thenArchiveNotQueried() {
+        entityManager.flush();
+        BookingRepositoryCustom archivingRepository = archivingRepository();
+        archivingRepository.archiveFinishedBookings(time, 10);
+        entityManager.clear();
+        Statistics statistics = statistics();
+
+        List<BookingView> result = archivingRepository.findAllByFilter(2L, Role.BOOKER, BookingFilter.of(State.ALL),
+                time, FromSizeRequest.of(0, 2, sort));
+
+        assertEquals(List.of(2L, 1L), ids(result));
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    private BookingRepositoryCustom archivingRepository() {
+        return new BookingRepositoryCustomImpl(entityManager.getEntityManager(), itemRepository, 500, false,
+                true, Duration.ofHours(12));
+    }
+
+    private List<BookingEvent> events() {
+        List<BookingEvent> events = new ArrayList<>();
+        bookingEventRepository.findAll().forEach(events::add);
+        return events;
+    }
+
+    private List<Long> ids(List<BookingView> bookings) {
+        return bookings.stream().map(BookingView::getId).collect(Collectors.toList());
+    }
+
+    private Statistics statistics() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -13,12 +13,18 @@ import org.springframework.data.domain.Sort;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.dto.CommentDto;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareits.item.dto.ItemBatchResult;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.TimeInterval;
 import ru.practicum.shareits.item.service.ItemService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -218,6 +224,44 @@ class ItemControllerTest {
         assertEquals(mapper.writeValueAsString(List.of(expectedItemDto)), result);
     }
 
+    @SneakyThrows
+    @Test
+    void getItemsByOwner_whenCursor_thenSeekAndReturnNextCursor() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = SeekRequest.of(PageCursor.of(0L), 1, sort);
+        when(itemService.getItemsByOwner(id, pageable)).thenReturn(List.of(expectedItemDto));
+
+        String nextCursor = mvc.perform(get("/items")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", id)
+                        .param("size", "1")
+                        .param("cursor", PageCursor.of(0L).encode()))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(PageCursor.NEXT_CURSOR_HEADER);
+
+        assertEquals(PageCursor.of(id), PageCursor.decode(nextCursor));
+    }
+
+    @SneakyThrows
+    @Test
+    void getItemsByOwner_whenLastPage_thenNoNextCursor() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        when(itemService.getItemsByOwner(id, pageable)).thenReturn(List.of(expectedItemDto));
+
+        String nextCursor = mvc.perform(get("/items")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", id))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getHeader(PageCursor.NEXT_CURSOR_HEADER);
+
+        assertNull(nextCursor);
+    }
+
     @SneakyThrows
     @Test
     void getItemsByOwner_whenNoHeaderId_thenReturnError() {
@@ -335,4 +379,129 @@ class ItemControllerTest {
                         .content(mapper.writeValueAsString(sentCommentDto)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @SneakyThrows
+    @Test
+    void getComments_whenFullPage_thenReturnCommentsAndNextCursor() {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        Pageable pageable = FromSizeRequest.of(0, 1, sort);
+        when(itemService.getComments(id, pageable)).thenReturn(List.of(expectedCommentDto));
+
+        String nextCursor = mvc.perform(get("/items/{itemId}/comments", id)
+                        .contentType("application/json")
+                        .param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(List.of(expectedCommentDto))))
+                .andReturn()
+                .getResponse()
+                .getHeader(PageCursor.NEXT_CURSOR_HEADER);
+
+        assertEquals(PageCursor.of(expectedCommentDto.getCreated(), id), PageCursor.decode(nextCursor));
+    }
+
+    @SneakyThrows
+    @Test
+    void getComments_whenCursor_thenSeek() {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        PageCursor cursor = PageCursor.of(expectedCommentDto.getCreated(), 5L);
+        Pageable pageable = SeekRequest.of(cursor, 10, sort);
+        when(itemService.getComments(id, pageable)).thenReturn(List.of());
+
+        mvc.perform(get("/items/{itemId}/comments", id)
+                        .contentType("application/json")
+                        .param("cursor", cursor.encode()))
+                .andExpect(status().isOk())
+                .andExpect(content().json("[]"));
+    }
+
+    @SneakyThrows
+    @Test
+    void getComments_whenItemNotFounded_thenNotFound() {
+        when(itemService.getComments(eq(wrongId), any())).thenThrow(EntityNotExistsException.class);
+
+        mvc.perform(get("/items/{itemId}/comments", wrongId)
+                        .contentType("application/json"))
+                .andExpect(status().isNotFound());
+    }
+
+    @SneakyThrows
+    @Test
+    void createItems_whenIsOk_thenReturnResultPerRow() {
+        List<ItemBatchResult> results = List.of(ItemBatchResult.created(0, id),
+                ItemBatchResult.rejected(1, "name must not be blank"));
+        when(itemService.createItems(List.of(sentItemDto, new ItemDto()), id)).thenReturn(results);
+
+        mvc.perform(post("/items/batch")
+                        .contentType("application/json")
+                        .header("X-Sharer-User-Id", id)
+                        .content(mapper.writeValueAsString(List.of(sentItemDto, new ItemDto()))))
+                .andExpect(status().isOk())
+                .andExpect(content().json(mapper.writeValueAsString(results)));
+    }
+
+    @SneakyThrows
+    @Test
+    void createItems_whenNoHeaderId_thenReturnError() {
+        mvc.perform(post("/items/batch")
+                        .contentType("application/json")
+                        .content(mapper.writeValueAsString(List.of(sentItemDto))))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @SneakyThrows
+    @Test
+    void exportItemsByOwner_whenIsOk_thenReturnNdjson() {
+        ItemDto secondItemDto = new ItemDto();
+        secondItemDto.setId(2L);
+        secondItemDto.setName("item2");
+        doAnswer(invocation -> {
+            Consumer<ItemDto> consumer = invocation.getArgument(1);
+            consumer.accept(expectedItemDto);
+            consumer.accept(secondItemDto);
+            return null;
+        }).when(itemService).exportItemsByOwner(eq(id), any());
+
+        String result = mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", id))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(expectedItemDto) + "\n"
+                + mapper.writeValueAsString(secondItemDto) + "\n", result);
+    }
+
+    @SneakyThrows
+    @Test
+    void exportItemsByOwner_whenUserNotFound_thenReturnNotFound() {
+        doThrow(new EntityNotExistsException("such user not registered"))
+                .when(itemService).exportItemsByOwner(eq(wrongId), any());
+
+        mvc.perform(get("/items/export")
+                        .header("X-Sharer-User-Id", wrongId))
+                .andExpect(status().isNotFound())
+                .andExpect(content().contentType("application/json"));
+    }
+
+    @SneakyThrows
+    @Test
+    void getAvailability_whenIsOk_thenReturnIntervals() {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 10, 0, 0);
+        ItemAvailabilityDto availability = new ItemAvailabilityDto(id, from, to,
+                List.of(new TimeInterval(from, from.plusDays(2))), List.of(new TimeInterval(from.plusDays(2), to)));
+        when(itemService.getAvailability(id, from, to)).thenReturn(availability);
+
+        String result = mvc.perform(get("/items/{itemId}/availability", id)
+                        .param("from", "2030-01-01T00:00:00")
+                        .param("to", "2030-01-10T00:00:00"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString();
+
+        assertEquals(mapper.writeValueAsString(availability), result);
+    }
+}
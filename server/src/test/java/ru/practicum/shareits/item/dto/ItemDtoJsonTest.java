@@ -7,7 +7,6 @@ import org.springframework.boot.test.autoconfigure.json.JsonTest;
 import org.springframework.boot.test.json.JacksonTester;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
-import ru.practicum.shareits.item.model.Comment;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.user.model.User;
 
@@ -29,12 +28,6 @@ class ItemDtoJsonTest {
         LocalDateTime time = LocalDateTime.now();
         User user = new User(5L, "mail@ya.ru", "name");
         Item item = new Item(1L, user, "item", "description", true, List.of(), 10L);
-        Comment comment = new Comment();
-        comment.setId(20L);
-        comment.setText("comment");
-        comment.setItem(item);
-        comment.setAuthor(user);
-        comment.setCreated(time);
 
         var dto = new ItemDto();
         dto.setId(1L);
@@ -43,7 +36,8 @@ class ItemDtoJsonTest {
         dto.setAvailable(true);
         dto.setRequestId(2L);
         dto.setNextBooking(new Booking(3L, item, user, Status.APPROVED, time.minusDays(1), time.plusDays(2)));
-        dto.setComments(List.of(comment));
+        dto.setCommentViews(List.of(new CommentView(1L, 20L, "comment", "name", time)));
+        dto.setCommentsCount(15);
 
         var result = json.write(dto);
 
@@ -56,5 +50,6 @@ class ItemDtoJsonTest {
         assertThat(result).extractingJsonPathNumberValue("$.nextBooking.bookerId").isEqualTo(5);
         assertThat(result).doesNotHaveJsonPath("$.lastBooking.id");
         assertThat(result).extractingJsonPathNumberValue("$.comments[0].id").isEqualTo(20);
+        assertThat(result).extractingJsonPathNumberValue("$.commentsCount").isEqualTo(15);
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package ru.practicum.shareits.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemAvailabilityCacheTest {
+
+    private ItemAvailabilityCache cache;
+    private AtomicInteger loads;
+    private LocalDateTime from;
+    private LocalDateTime to;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ItemAvailabilityCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+        from = LocalDateTime.now();
+        to = from.plusDays(7);
+    }
+
+    @Test
+    void get_whenRequestedTwice_thenLoadedOnce() {
+        ItemAvailabilityDto first = cache.get(1L, from, to, () -> load(1L));
+        ItemAvailabilityDto second = cache.get(1L, from, to, () -> load(1L));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void evict_thenOnlyRangesOfThatItemReloaded() {
+        cache.get(1L, from, to, () -> load(1L));
+        cache.get(1L, from, to.plusDays(1), () -> load(1L));
+        cache.get(2L, from, to, () -> load(2L));
+
+        cache.evict(1L);
+        cache.get(1L, from, to, () -> load(1L));
+        cache.get(1L, from, to.plusDays(1), () -> load(1L));
+        cache.get(2L, from, to, () -> load(2L));
+
+        assertEquals(5, loads.get());
+    }
+
+    @Test
+    void get_whenItemHasSeveralRanges_thenEachRangeCachedSeparately() {
+        ItemAvailabilityDto first = cache.get(1L, from, to, () -> load(1L));
+        ItemAvailabilityDto second = cache.get(1L, from, to.plusDays(1), () -> load(1L));
+
+        assertNotSame(first, second);
+        assertSame(first, cache.get(1L, from, to, () -> load(1L)));
+        assertSame(second, cache.get(1L, from, to.plusDays(1), () -> load(1L)));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenEvictedWhileLoading_thenResultNotCached() {
+        cache.get(1L, from, to, () -> {
+            cache.evict(1L);
+            return load(1L);
+        });
+        cache.get(1L, from, to, () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    private ItemAvailabilityDto load(Long itemId) {
+        loads.incrementAndGet();
+        return new ItemAvailabilityDto(itemId, from, to, List.of(), List.of());
+    }
+}
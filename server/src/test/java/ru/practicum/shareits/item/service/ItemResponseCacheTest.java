@@ -0,0 +1,104 @@
+package ru.practicum.shareits.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareits.item.dto.ItemDto;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemResponseCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemResponseCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemResponseCache(meterRegistry, 100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void get_whenRequestedTwice_thenLoadedOnce() {
+        ItemDto first = cache.get(1L, false, () -> load(null));
+        ItemDto second = cache.get(1L, false, () -> load(null));
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenOwnerAndOther_thenSeparateEntries() {
+        ItemDto owner = cache.get(1L, true, () -> load(null));
+        ItemDto other = cache.get(1L, false, () -> load(null));
+
+        assertNotSame(owner, other);
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evict_thenBothViewsReloaded() {
+        cache.get(1L, true, () -> load(null));
+        cache.get(1L, false, () -> load(null));
+
+        cache.evict(1L);
+        cache.get(1L, true, () -> load(null));
+        cache.get(1L, false, () -> load(null));
+
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void evictOwnerView_thenOnlyOwnerViewReloaded() {
+        cache.get(1L, true, () -> load(null));
+        cache.get(1L, false, () -> load(null));
+
+        cache.evictOwnerView(1L);
+        cache.get(1L, true, () -> load(null));
+        cache.get(1L, false, () -> load(null));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void get_whenEvictedWhileLoading_thenResultNotCached() {
+        cache.get(1L, false, () -> {
+            cache.evict(1L);
+            return load(null);
+        });
+        cache.get(1L, false, () -> load(null));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenExpiresAtPassed_thenReloaded() {
+        cache.get(1L, true, () -> load(LocalDateTime.now().minusSeconds(1)));
+        cache.get(1L, true, () -> load(LocalDateTime.now().plusDays(1)));
+        cache.get(1L, true, () -> load(LocalDateTime.now().plusDays(1)));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_thenStatisticsExported() {
+        cache.get(1L, false, () -> load(null));
+        cache.get(1L, false, () -> load(null));
+
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "items.response", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tags("cache", "items.response", "result", "miss")
+                .functionCounter().count());
+    }
+
+    private ItemResponseCache.Entry load(LocalDateTime expiresAt) {
+        loads.incrementAndGet();
+        return new ItemResponseCache.Entry(new ItemDto(), expiresAt);
+    }
+}
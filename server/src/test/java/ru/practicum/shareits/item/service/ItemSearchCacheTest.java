@@ -0,0 +1,120 @@
+package ru.practicum.shareits.item.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareits.common.model.FromSizeRequest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemSearchCacheTest {
+
+    private final Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id"));
+
+    private SimpleMeterRegistry meterRegistry;
+    private ItemSearchCache cache;
+    private AtomicInteger loads;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new ItemSearchCache(meterRegistry, 100, Duration.ofMinutes(5));
+        loads = new AtomicInteger();
+    }
+
+    @Test
+    void normalize_thenTrimmedLowerCasedAndSingleSpaced() {
+        assertEquals("cordless drill", ItemSearchCache.normalize("  Cordless \t DRILL "));
+    }
+
+    @Test
+    void get_whenSameTextAndPage_thenLoadedOnce() {
+        cache.get("drill", pageable, () -> load(1L));
+        List<Long> result = cache.get("drill", pageable, () -> load(2L));
+
+        assertEquals(List.of(1L), result);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void get_whenOtherPage_thenLoadedSeparately() {
+        cache.get("drill", pageable, () -> load(1L));
+        cache.get("drill", FromSizeRequest.of(10, 10, Sort.by("id")), () -> load(2L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictMatching_whenItemInResult_thenEntryEvicted() {
+        cache.get("drill", pageable, () -> load(1L));
+
+        cache.evictMatching(1L, "hammer", "heavy");
+        cache.get("drill", pageable, () -> load(1L));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void evictMatching_whenAnyWordOfTextInNameOrDescription_thenEntryEvicted() {
+        cache.get("cordless drill", pageable, () -> load());
+        cache.get("saw", pageable, () -> load());
+
+        cache.evictMatching(5L, "Hammer", "Drills concrete");
+        cache.get("cordless drill", pageable, () -> load());
+        cache.get("saw", pageable, () -> load());
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictMatching_whenItemInOnePage_thenEveryPageOfTextEvicted() {
+        cache.get("drill", FromSizeRequest.of(0, 1, Sort.by("id")), () -> load(1L));
+        cache.get("drill", FromSizeRequest.of(1, 1, Sort.by("id")), () -> load(2L));
+
+        cache.evictMatching(1L, "hammer", "heavy");
+        cache.get("drill", FromSizeRequest.of(1, 1, Sort.by("id")), () -> load(2L));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictMatching_whenPreviousNameMatched_thenEntryEvicted() {
+        cache.get("drill", pageable, () -> load());
+
+        cache.evictMatching(1L, "hammer", "heavy", "drill", "useful");
+        cache.get("drill", pageable, () -> load());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_whenEvictedWhileLoading_thenResultNotCached() {
+        cache.get("drill", pageable, () -> {
+            cache.evictMatching(5L, "drill", null);
+            return load();
+        });
+        cache.get("drill", pageable, () -> load());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void get_thenHitRatioAndEvictionsExported() {
+        cache.get("drill", pageable, () -> load(1L));
+        cache.get("drill", pageable, () -> load(1L));
+
+        assertEquals(0.5, meterRegistry.get("cache.hit.ratio").tags("cache", "items.search").gauge().value());
+        assertNotNull(meterRegistry.get("cache.evictions").tags("cache", "items.search").functionCounter());
+    }
+
+    private List<Long> load(Long... itemIds) {
+        loads.incrementAndGet();
+        return List.of(itemIds);
+    }
+}
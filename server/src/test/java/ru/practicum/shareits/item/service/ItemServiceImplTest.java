@@ -1,5 +1,6 @@
 package ru.practicum.shareits.item.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -13,22 +14,36 @@ import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
 import ru.practicum.shareits.common.exceptions.ItemAccessErrorException;
 import ru.practicum.shareits.common.exceptions.ItemNotAvailableException;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.dto.CommentDto;
+import ru.practicum.shareits.item.dto.CommentView;
+import ru.practicum.shareits.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareits.item.dto.ItemBatchResult;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.ItemView;
+import ru.practicum.shareits.item.dto.TimeInterval;
 import ru.practicum.shareits.item.mapper.MapperComment;
 import ru.practicum.shareits.item.mapper.MapperItem;
 import ru.practicum.shareits.item.model.Comment;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.item.storage.CommentsRepository;
 import ru.practicum.shareits.item.storage.ItemRepository;
+import ru.practicum.shareits.item.storage.ItemTrigramIndex;
 import ru.practicum.shareits.request.model.ItemRequest;
 import ru.practicum.shareits.request.storage.ItemRequestRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -44,6 +59,7 @@ class ItemServiceImplTest {
     private BookingRepository bookingRepository;
     private CommentsRepository commentsRepository;
     private ItemRequestRepository itemRequestRepository;
+    private ItemTrigramIndex itemTrigramIndex;
     private MapperComment mapperComment;
 
     private Long id;
@@ -51,6 +67,7 @@ class ItemServiceImplTest {
     private User booker;
     private Item item;
     private Item itemWithoutId;
+    private ItemView itemView;
     private ItemDto itemDto;
     private ItemDto expectedItemDto;
     private LocalDateTime time;
@@ -64,11 +81,15 @@ class ItemServiceImplTest {
 
         commentsRepository = mock(CommentsRepository.class);
         itemRequestRepository = mock(ItemRequestRepository.class);
+        itemTrigramIndex = mock(ItemTrigramIndex.class);
         mapperComment = mock(MapperComment.class);
         MapperItem mapperItem = new MapperItem();
         service = new ItemServiceImpl(itemRepository, userRepository,
                 bookingRepository, commentsRepository, itemRequestRepository,
-                mapperItem, mapperComment);
+                itemTrigramIndex, new ItemResponseCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)),
+                new ItemSearchCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)),
+                new ItemAvailabilityCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5)), mapperItem,
+                mapperComment);
 
         id = 1L;
         LocalDateTime start = LocalDateTime.now().plusDays(1);
@@ -77,6 +98,7 @@ class ItemServiceImplTest {
         booker = new User(2L, "mail2@ya.ru", "user2");
         item = new Item(1L, user, "item", "useful", true, List.of(), null);
         itemWithoutId = new Item(null, user, "item", "useful", true, List.of(), null);
+        itemView = new ItemView(1L, "item", "useful", true, null);
 
         booking = new Booking(id, item, booker, Status.WAITING, start, end);
 
@@ -108,6 +130,7 @@ class ItemServiceImplTest {
 
         assertEquals(expectedItemDto, result);
         verify(itemRepository, times(1)).save(itemWithoutId);
+        verify(itemTrigramIndex, times(1)).index(item);
     }
 
     @Test
@@ -149,36 +172,45 @@ class ItemServiceImplTest {
         Item updatedItem = new Item(1L, user, "item2", "useful2", true, List.of(), null);
         expectedItemDto.setName("item2");
         expectedItemDto.setDescription("useful2");
-        when(userRepository.findById(id)).thenReturn(Optional.of(user));
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(itemRepository.updateItemById(itemDto, id)).thenReturn(updatedItem);
+        when(itemRepository.updateItemByIdAndUserId(itemDto, id, id)).thenReturn(1);
+        when(itemRepository.findById(id)).thenReturn(Optional.of(updatedItem));
 
         ItemDto result = service.updateItemById(itemDto, id, id);
 
         assertEquals(expectedItemDto, result);
+        verify(itemTrigramIndex, times(1)).index(updatedItem);
+        verify(userRepository, never()).existsById(any());
     }
 
     @Test
     void updateItemById_whenWhenUserNotFound_thenEntityNotExistsException() {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(userRepository.findById(1L)).thenReturn(Optional.empty());
+        when(itemRepository.updateItemByIdAndUserId(itemDto, id, id)).thenReturn(0);
+        when(itemRepository.existsById(id)).thenReturn(true);
+        when(userRepository.existsById(id)).thenReturn(false);
 
-        assertThrows(EntityNotExistsException.class, () -> service.updateItemById(itemDto, id, id));
+        EntityNotExistsException exception = assertThrows(EntityNotExistsException.class,
+                () -> service.updateItemById(itemDto, id, id));
+        assertEquals("such user not registered", exception.getMessage());
     }
 
     @Test
     void updateItemById_whenWhenItemNotFound_thenEntityNotExistsException() {
-        when(itemRepository.findById(id)).thenReturn(Optional.empty());
+        when(itemRepository.updateItemByIdAndUserId(itemDto, id, id)).thenReturn(0);
+        when(itemRepository.existsById(id)).thenReturn(false);
 
-        assertThrows(EntityNotExistsException.class, () -> service.updateItemById(itemDto, id, id));
+        EntityNotExistsException exception = assertThrows(EntityNotExistsException.class,
+                () -> service.updateItemById(itemDto, id, id));
+        assertEquals("such item not registered", exception.getMessage());
     }
 
     @Test
     void updateItemById_whenWhenUserNotOwner_thenItemAccessErrorException() {
-        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(userRepository.findById(1L)).thenReturn(Optional.of(booker));
+        when(itemRepository.updateItemByIdAndUserId(itemDto, id, id)).thenReturn(0);
+        when(itemRepository.existsById(id)).thenReturn(true);
+        when(userRepository.existsById(id)).thenReturn(true);
 
         assertThrows(ItemAccessErrorException.class, () -> service.updateItemById(itemDto, id, id));
+        verify(itemTrigramIndex, never()).index(any());
     }
 
     @Test
@@ -193,20 +225,38 @@ class ItemServiceImplTest {
     }
 
     @Test
-    void getItemById_whenUserIsOwner_thenReturnItem() {
-        expectedItemDto.setLastBooking(booking);
+    void getItemById_whenUserIsOwner_thenReturnItemWithBookingPointers() {
+        Booking lastBooking = new Booking(2L, item, booker, Status.APPROVED,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(booking);
+        expectedItemDto.setLastBooking(lastBooking);
         expectedItemDto.setNextBooking(booking);
         when(itemRepository.findById(id)).thenReturn(Optional.of(item));
-        when(bookingRepository.findFirstByItemIdAndStartBeforeOrderByStart(any(), any(), any()))
-                .thenReturn(booking);
-        when(bookingRepository.findFirstByItemIdAndStartAfterOrderByStart(any(), any(), any()))
-                .thenReturn(booking);
+        when(itemRepository.findWithBookingPointersById(id)).thenReturn(Optional.of(item));
+
+        ItemDto result = service.getItemById(id, id);
+
+        assertEquals(expectedItemDto, result);
+        verify(bookingRepository, never()).findFirstByItemIdAndStartBeforeOrderByStart(any(), any(), any());
+        verify(bookingRepository, never()).findFirstByItemIdAndStartAfterOrderByStart(any(), any(), any());
+    }
+
+    @Test
+    void getItemById_whenNextBookingAlreadyStarted_thenBookingsRecomputed() {
+        Booking startedBooking = new Booking(2L, item, booker, Status.APPROVED,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        item.setNextBooking(startedBooking);
+        expectedItemDto.setLastBooking(startedBooking);
+        expectedItemDto.setNextBooking(booking);
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(itemRepository.findWithBookingPointersById(id)).thenReturn(Optional.of(item));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(eq(List.of(id)), any()))
+                .thenReturn(List.of(startedBooking, booking));
 
         ItemDto result = service.getItemById(id, id);
 
         assertEquals(expectedItemDto, result);
-        assertNotNull(result.getNextBooking());
-        assertNotNull(result.getLastBooking());
     }
 
     @Test
@@ -216,6 +266,22 @@ class ItemServiceImplTest {
         assertThrows(EntityNotExistsException.class, () -> service.getItemById(id, id));
     }
 
+    @Test
+    void getItemById_whenRequestedTwice_thenBookingsReadOnce() {
+        item.setNextBooking(booking);
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(itemRepository.findWithBookingPointersById(id)).thenReturn(Optional.of(item));
+
+        ItemDto first = service.getItemById(id, id);
+        ItemDto second = service.getItemById(id, id);
+        ItemDto forOther = service.getItemById(id, 2L);
+
+        assertSame(first, second);
+        assertNotNull(second.getNextBooking());
+        assertNull(forOther.getNextBooking());
+        verify(itemRepository, times(1)).findWithBookingPointersById(id);
+    }
+
 
     @Test
     void getItemsByOwner_whenIsOk_thenReturnItem() {
@@ -229,6 +295,60 @@ class ItemServiceImplTest {
         assertEquals(List.of(expectedItemDto), result);
     }
 
+    @Test
+    void getItemsByOwner_whenItemsHaveBookingPointers_thenBookingsNotQueried() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        Item item2 = new Item(2L, user, "item2", "useful2", true, List.of(), null);
+        Booking lastBooking = new Booking(2L, item, booker, Status.APPROVED,
+                LocalDateTime.now().minusDays(2), LocalDateTime.now().minusDays(1));
+        item.setLastBooking(lastBooking);
+        item.setNextBooking(booking);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByUserId(id, pageable)).thenReturn(List.of(item, item2));
+
+        expectedItemDto.setLastBooking(lastBooking);
+        expectedItemDto.setNextBooking(booking);
+        ItemDto expectedItemDto2 = new ItemDto();
+        expectedItemDto2.setId(2L);
+        expectedItemDto2.setName("item2");
+        expectedItemDto2.setDescription("useful2");
+        expectedItemDto2.setAvailable(true);
+
+        List<ItemDto> result = service.getItemsByOwner(id, pageable);
+
+        assertEquals(List.of(expectedItemDto, expectedItemDto2), result);
+        verify(bookingRepository, never()).findLastAndNextBookingsByItemIds(any(), any());
+        verify(bookingRepository, never()).findFirstByItemIdAndStartBeforeOrderByStart(any(), any(), any());
+        verify(bookingRepository, never()).findFirstByItemIdAndStartAfterOrderByStart(any(), any(), any());
+    }
+
+    @Test
+    void getItemsByOwner_whenNextBookingAlreadyStarted_thenOnlyStaleItemsQueried() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        Item item2 = new Item(2L, user, "item2", "useful2", true, List.of(), null);
+        Booking startedBooking = new Booking(2L, item2, booker, Status.APPROVED,
+                LocalDateTime.now().minusHours(1), LocalDateTime.now().plusDays(1));
+        item2.setNextBooking(startedBooking);
+        when(userRepository.findById(1L)).thenReturn(Optional.of(user));
+        when(itemRepository.findAllByUserId(id, pageable)).thenReturn(List.of(item, item2));
+        when(bookingRepository.findLastAndNextBookingsByItemIds(eq(List.of(2L)), any()))
+                .thenReturn(List.of(startedBooking));
+
+        ItemDto expectedItemDto2 = new ItemDto();
+        expectedItemDto2.setId(2L);
+        expectedItemDto2.setName("item2");
+        expectedItemDto2.setDescription("useful2");
+        expectedItemDto2.setAvailable(true);
+        expectedItemDto2.setLastBooking(startedBooking);
+
+        List<ItemDto> result = service.getItemsByOwner(id, pageable);
+
+        assertEquals(List.of(expectedItemDto, expectedItemDto2), result);
+        verify(bookingRepository, times(1)).findLastAndNextBookingsByItemIds(any(), any());
+    }
+
     @Test
     void getItemsByOwner_whenWhenUserNotFound_thenEntityNotExistsException() {
         Sort sort = Sort.by("id").ascending();
@@ -238,17 +358,167 @@ class ItemServiceImplTest {
         assertThrows(EntityNotExistsException.class, () -> service.getItemsByOwner(id, pageable));
     }
 
+    @Test
+    void exportItemsByOwner_whenIsOk_thenViewsMappedToItemsDto() {
+        when(userRepository.existsById(1L)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<List<ItemView>> consumer = invocation.getArgument(1);
+            consumer.accept(List.of(itemView));
+            return null;
+        }).when(itemRepository).exportViewsByUserId(eq(1L), any());
+        List<ItemDto> exported = new ArrayList<>();
+
+        service.exportItemsByOwner(id, exported::add);
+
+        assertEquals(1, exported.size());
+        assertEquals(expectedItemDto.getId(), exported.get(0).getId());
+        assertEquals(expectedItemDto.getName(), exported.get(0).getName());
+    }
+
+    @Test
+    void exportItemsByOwner_whenItemsHaveComments_thenCommentsAttachedPerPage() {
+        ItemView itemView2 = new ItemView(2L, "item2", "useful2", true, null);
+        ItemView itemView3 = new ItemView(3L, "item3", "useful3", true, null);
+        CommentView commentView = new CommentView(2L, 5L, "nice", "user2", time);
+        when(userRepository.existsById(1L)).thenReturn(true);
+        doAnswer(invocation -> {
+            Consumer<List<ItemView>> consumer = invocation.getArgument(1);
+            consumer.accept(List.of(itemView, itemView2));
+            consumer.accept(List.of(itemView3));
+            return null;
+        }).when(itemRepository).exportViewsByUserId(eq(1L), any());
+        when(commentsRepository.findLatestViewsByItemIdIn(List.of(id, 2L))).thenReturn(List.of(commentView));
+        when(commentsRepository.countByItemIdIn(List.of(id, 2L))).thenReturn(Map.of(2L, 25L));
+        List<ItemDto> exported = new ArrayList<>();
+
+        service.exportItemsByOwner(id, exported::add);
+
+        assertEquals(3, exported.size());
+        assertEquals(0, exported.get(0).getCommentsCount());
+        assertEquals(1, exported.get(1).getComments().size());
+        assertEquals(25, exported.get(1).getCommentsCount());
+        assertEquals(0, exported.get(2).getComments().size());
+        verify(commentsRepository).countByItemIdIn(List.of(3L));
+    }
+
+    @Test
+    void exportItemsByOwner_whenUserNotFound_thenEntityNotExistsException() {
+        when(userRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class, () -> service.exportItemsByOwner(id, itemDto -> { }));
+        verify(itemRepository, never()).exportViewsByUserId(any(), any());
+    }
+
+    @Test
+    void getAvailability_whenBookingsOverlap_thenMergedBusyAndFreeIntervals() {
+        LocalDateTime from = time.plusDays(1);
+        LocalDateTime to = time.plusDays(10);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemIdAndStatus(1L, Status.APPROVED, from, to)).thenReturn(List.of(
+                new TimeInterval(time, time.plusDays(2)),
+                new TimeInterval(time.plusDays(4), time.plusDays(6)),
+                new TimeInterval(time.plusDays(5), time.plusDays(7)),
+                new TimeInterval(time.plusDays(7), time.plusDays(8)),
+                new TimeInterval(time.plusDays(9), time.plusDays(12))));
+
+        ItemAvailabilityDto result = service.getAvailability(1L, from, to);
+
+        assertEquals(List.of(
+                new TimeInterval(from, time.plusDays(2)),
+                new TimeInterval(time.plusDays(4), time.plusDays(8)),
+                new TimeInterval(time.plusDays(9), to)), result.getBusy());
+        assertEquals(List.of(
+                new TimeInterval(time.plusDays(2), time.plusDays(4)),
+                new TimeInterval(time.plusDays(8), time.plusDays(9))), result.getFree());
+    }
+
+    @Test
+    void getAvailability_whenNoBookings_thenWholeRangeFree() {
+        LocalDateTime from = time.plusDays(1);
+        LocalDateTime to = time.plusDays(10);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemIdAndStatus(1L, Status.APPROVED, from, to)).thenReturn(List.of());
+
+        ItemAvailabilityDto result = service.getAvailability(1L, from, to);
+
+        assertEquals(List.of(), result.getBusy());
+        assertEquals(List.of(new TimeInterval(from, to)), result.getFree());
+    }
+
+    @Test
+    void getAvailability_whenRequestedTwice_thenBookingsQueriedOnce() {
+        LocalDateTime from = time.plusDays(1);
+        LocalDateTime to = time.plusDays(10);
+        when(itemRepository.existsById(1L)).thenReturn(true);
+        when(bookingRepository.findIntervalsByItemIdAndStatus(1L, Status.APPROVED, from, to)).thenReturn(List.of());
+
+        service.getAvailability(1L, from, to);
+        service.getAvailability(1L, from, to);
+
+        verify(bookingRepository, times(1)).findIntervalsByItemIdAndStatus(1L, Status.APPROVED, from, to);
+    }
+
+    @Test
+    void getAvailability_whenItemNotFound_thenEntityNotExistsException() {
+        when(itemRepository.existsById(1L)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class, () -> service.getAvailability(1L, time, time.plusDays(1)));
+    }
+
+    @Test
+    void getAvailability_whenRangeEndsBeforeStart_thenItemNotAvailableException() {
+        assertThrows(ItemNotAvailableException.class, () -> service.getAvailability(1L, time, time));
+        assertThrows(ItemNotAvailableException.class, () -> service.getAvailability(1L, time, time.minusDays(1)));
+        verify(itemRepository, never()).existsById(any());
+    }
+
     @Test
     void searchItemsByRequest_whenIsOk_thenReturnItemsList() {
         Sort sort = Sort.by("id").ascending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
-        when(itemRepository.findItemsByRequest("request", pageable)).thenReturn(List.of(item));
+        when(itemRepository.findItemsByRequest("request", pageable)).thenReturn(List.of(itemView));
 
         List<ItemDto> result = service.searchItemsByRequest("request", pageable);
 
         assertEquals(List.of(expectedItemDto), result);
     }
 
+    @Test
+    void searchItemsByRequest_whenItemsHaveComments_thenCommentsAttachedToTheirItems() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        ItemView itemView2 = new ItemView(2L, "item2", "useful2", true, null);
+        CommentView commentView = new CommentView(2L, 5L, "nice", "user2", time);
+        when(itemRepository.findItemsByRequest("request", pageable)).thenReturn(List.of(itemView, itemView2));
+        when(commentsRepository.findLatestViewsByItemIdIn(List.of(id, 2L))).thenReturn(List.of(commentView));
+        when(commentsRepository.countByItemIdIn(List.of(id, 2L))).thenReturn(Map.of(2L, 25L));
+
+        List<ItemDto> result = service.searchItemsByRequest("request", pageable);
+
+        assertEquals(2, result.size());
+        assertEquals(0, result.get(0).getComments().size());
+        assertEquals(0, result.get(0).getCommentsCount());
+        assertEquals(1, result.get(1).getComments().size());
+        assertEquals(25, result.get(1).getCommentsCount());
+    }
+
+    @Test
+    void searchItemsByRequest_whenIndexEnabled_thenReturnItemsInIndexOrder() {
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        ItemView itemView2 = new ItemView(2L, "item2", "useful2", true, null);
+        when(itemTrigramIndex.isEnabled()).thenReturn(true);
+        when(itemTrigramIndex.search("request", 0, 10)).thenReturn(List.of(2L, 1L));
+        when(itemRepository.findViewsByIdIn(List.of(2L, 1L))).thenReturn(List.of(itemView, itemView2));
+
+        List<ItemDto> result = service.searchItemsByRequest("request", pageable);
+
+        assertEquals(2, result.size());
+        assertEquals(2L, result.get(0).getId());
+        assertEquals(1L, result.get(1).getId());
+        verify(itemRepository, never()).findItemsByRequest(anyString(), any());
+    }
+
     @Test
     void searchItemsByRequest_whenRequestIsBlank_thenReturnItemsList() {
         Sort sort = Sort.by("id").ascending();
@@ -297,6 +567,31 @@ class ItemServiceImplTest {
         verify(commentsRepository, times(1)).save(commentWithoutId);
     }
 
+    @Test
+    void createComment_whenOnlyArchivedBookingFinished_thenReturnComment() {
+        Comment comment = new Comment();
+        comment.setId(id);
+        comment.setText("comment");
+        comment.setItem(item);
+        comment.setAuthor(booker);
+        comment.setCreated(time);
+
+        CommentDto commentDto = new CommentDto();
+        commentDto.setText("comment");
+
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(userRepository.findById(2L)).thenReturn(Optional.of(booker));
+        when(bookingRepository.existsByBooker_IdAndEndIsBeforeAndStatusIs(any(), any(), any()))
+                .thenReturn(false);
+        when(bookingRepository.existsArchivedByBookerIdAndStatus(2L, Status.APPROVED)).thenReturn(true);
+        when(mapperComment.convertCommentDtoToComment(commentDto, item, booker)).thenReturn(comment);
+        when(commentsRepository.save(comment)).thenReturn(comment);
+
+        service.createComment(id, 2L, commentDto);
+
+        verify(commentsRepository, times(1)).save(comment);
+    }
+
     @Test
     void createComment_whenWhenItemNotFound_thenEntityNotExistsException() {
         CommentDto commentDto = new CommentDto();
@@ -330,4 +625,157 @@ class ItemServiceImplTest {
         assertThrows(ItemNotAvailableException.class, () -> service.createComment(id, id, commentDto));
         verify(commentsRepository, never()).save(any());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getItemById_whenItemHasComments_thenLatestCommentsAndCountAttached() {
+        CommentView commentView = new CommentView(id, 5L, "nice", "user2", time);
+        when(itemRepository.findById(id)).thenReturn(Optional.of(item));
+        when(commentsRepository.findLatestViewsByItemIdIn(List.of(id))).thenReturn(List.of(commentView));
+        when(commentsRepository.countByItemIdIn(List.of(id))).thenReturn(Map.of(id, 40L));
+
+        ItemDto result = service.getItemById(id, 2L);
+
+        assertEquals(1, result.getComments().size());
+        assertEquals(40, result.getCommentsCount());
+    }
+
+    @Test
+    void getComments_whenFromSize_thenReturnPage() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("created").descending());
+        CommentView commentView = new CommentView(id, 5L, "nice", "user2", time);
+        CommentDto commentDto = new CommentDto();
+        commentDto.setId(5L);
+        when(itemRepository.existsById(id)).thenReturn(true);
+        when(commentsRepository.findViewsByItemId(id, pageable)).thenReturn(List.of(commentView));
+        when(mapperComment.convertAllCommentViewsToCommentsDto(List.of(commentView))).thenReturn(List.of(commentDto));
+
+        List<CommentDto> result = service.getComments(id, pageable);
+
+        assertEquals(List.of(commentDto), result);
+        verify(commentsRepository, never()).findViewsByItemIdBefore(any(), any(), any(), any());
+    }
+
+    @Test
+    void getComments_whenCursor_thenSeekAfterCursor() {
+        Pageable pageable = SeekRequest.of(PageCursor.of(time, 7L), 10, Sort.by("created").descending());
+        when(itemRepository.existsById(id)).thenReturn(true);
+        when(commentsRepository.findViewsByItemIdBefore(id, time, 7L, pageable)).thenReturn(List.of());
+
+        List<CommentDto> result = service.getComments(id, pageable);
+
+        assertTrue(result.isEmpty());
+        verify(commentsRepository, never()).findViewsByItemId(any(), any());
+    }
+
+    @Test
+    void getComments_whenItemNotFound_thenEntityNotExistsException() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("created").descending());
+        when(itemRepository.existsById(id)).thenReturn(false);
+
+        assertThrows(EntityNotExistsException.class, () -> service.getComments(id, pageable));
+    }
+
+    @Test
+    void searchItemsByRequest_whenRepeatedWithSameNormalizedText_thenServedFromCache() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id").ascending());
+        when(itemRepository.findItemsByRequest("drill", pageable)).thenReturn(List.of(itemView));
+        when(itemRepository.findViewsByIdIn(List.of(id))).thenReturn(List.of(itemView));
+
+        List<ItemDto> first = service.searchItemsByRequest("drill", pageable);
+        List<ItemDto> second = service.searchItemsByRequest("  DRILL ", pageable);
+
+        assertEquals(first, second);
+        verify(itemRepository, times(1)).findItemsByRequest(any(), any());
+        verify(itemRepository, times(1)).findViewsByIdIn(any());
+    }
+
+    @Test
+    void searchItemsByRequest_whenMatchingItemUpdated_thenSearchedAgain() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id").ascending());
+        Item drill = new Item(2L, user, "drill", "useful", true, List.of(), null);
+        when(itemRepository.findItemsByRequest("drill", pageable)).thenReturn(List.of());
+        when(itemRepository.updateItemByIdAndUserId(itemDto, 2L, id)).thenReturn(1);
+        when(itemRepository.findById(2L)).thenReturn(Optional.of(drill));
+
+        service.searchItemsByRequest("drill", pageable);
+        service.updateItemById(itemDto, 2L, id);
+        service.searchItemsByRequest("drill", pageable);
+
+        verify(itemRepository, times(2)).findItemsByRequest("drill", pageable);
+    }
+
+    @Test
+    void searchItemsByRequest_whenMatchingItemRenamedAway_thenSearchedAgain() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id").ascending());
+        Item drill = new Item(2L, user, "drill", "useful", true, List.of(), null);
+        Item hammer = new Item(2L, user, "hammer", "heavy", true, List.of(), null);
+        when(itemRepository.findItemsByRequest("drill", pageable)).thenReturn(List.of());
+        when(itemRepository.updateItemByIdAndUserId(itemDto, 2L, id)).thenReturn(1);
+        when(itemRepository.findById(2L)).thenReturn(Optional.of(drill), Optional.of(hammer));
+
+        service.searchItemsByRequest("drill", pageable);
+        service.updateItemById(itemDto, 2L, id);
+        service.searchItemsByRequest("drill", pageable);
+
+        verify(itemRepository, times(2)).findItemsByRequest("drill", pageable);
+    }
+
+    @Test
+    void searchItemsByRequest_whenUnrelatedItemCreated_thenServedFromCache() {
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id").ascending());
+        when(itemRepository.findItemsByRequest("drill", pageable)).thenReturn(List.of());
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        when(itemRepository.save(itemWithoutId)).thenReturn(item);
+
+        service.searchItemsByRequest("drill", pageable);
+        service.createItem(itemDto, id);
+        service.searchItemsByRequest("drill", pageable);
+
+        verify(itemRepository, times(1)).findItemsByRequest("drill", pageable);
+    }
+
+    @Test
+    void createItems_whenSomeRowsInvalid_thenResultPerRow() {
+        ItemDto blankName = new ItemDto();
+        blankName.setName(" ");
+        blankName.setDescription("useful");
+        blankName.setAvailable(true);
+        ItemDto unknownRequest = new ItemDto();
+        unknownRequest.setName("item");
+        unknownRequest.setDescription("useful");
+        unknownRequest.setAvailable(true);
+        unknownRequest.setRequestId(99L);
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+        when(itemRequestRepository.findExistingIds(Set.of(99L))).thenReturn(Set.of());
+        when(itemRepository.insertItems(List.of(itemWithoutId))).thenReturn(List.of(7L));
+
+        List<ItemBatchResult> result = service.createItems(Arrays.asList(blankName, itemDto, unknownRequest, null), id);
+
+        assertEquals(List.of(
+                ItemBatchResult.rejected(0, "name must not be blank"),
+                ItemBatchResult.created(1, 7L),
+                ItemBatchResult.rejected(2, "such request not registered"),
+                ItemBatchResult.rejected(3, "item must not be null")), result);
+        verify(itemTrigramIndex, times(1)).index(any());
+        verify(userRepository, times(1)).findById(any());
+    }
+
+    @Test
+    void createItems_whenAllRowsInvalid_thenNothingInserted() {
+        when(userRepository.findById(id)).thenReturn(Optional.of(user));
+
+        List<ItemBatchResult> result = service.createItems(List.of(new ItemDto()), id);
+
+        assertEquals(List.of(ItemBatchResult.rejected(0, "name must not be blank")), result);
+        verify(itemRepository, never()).insertItems(any());
+        verify(itemRequestRepository, never()).findExistingIds(any());
+    }
+
+    @Test
+    void createItems_whenUserNotFound_thenEntityNotExistsException() {
+        when(userRepository.findById(id)).thenReturn(Optional.empty());
+
+        assertThrows(EntityNotExistsException.class, () -> service.createItems(List.of(itemDto), id));
+        verify(itemRepository, never()).insertItems(any());
+    }
+}
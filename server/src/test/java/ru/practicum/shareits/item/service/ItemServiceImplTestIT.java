@@ -8,14 +8,18 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.booking.enums.Status;
+import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.common.model.FromSizeRequest;
 import ru.practicum.shareits.item.dto.ItemDto;
 import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.dto.UserDto;
 import ru.practicum.shareits.user.service.UserService;
 
 import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
+import java.time.LocalDateTime;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -105,4 +109,39 @@ class ItemServiceImplTestIT {
         assertEquals(1, items.size());
         assertEquals("item2", items.get(0).getName());
     }
-}
\ No newline at end of file
+
+    @DirtiesContext
+    @Test
+    void getItemById_whenNextBookingPointerStale_thenLatestPastBookingShown() {
+        UserDto owner = userService.createUser(new UserDto(null, "mail@ya.ru", "user"));
+        UserDto booker = userService.createUser(new UserDto(null, "mail2@ya.ru", "user2"));
+
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("item");
+        itemDto.setDescription("useful");
+        itemDto.setAvailable(true);
+        Long itemId = itemService.createItem(itemDto, owner.getId()).getId();
+
+        Item item = em.find(Item.class, itemId);
+        User user = em.find(User.class, booker.getId());
+        LocalDateTime now = LocalDateTime.now();
+        Booking earliest = new Booking(null, item, user, Status.APPROVED, now.minusDays(10), now.minusDays(9));
+        Booking latest = new Booking(null, item, user, Status.APPROVED, now.minusDays(5), now.minusDays(4));
+        Booking next = new Booking(null, item, user, Status.APPROVED, now.plusDays(1), now.plusDays(2));
+        em.persist(earliest);
+        em.persist(latest);
+        em.persist(next);
+        item.setNextBooking(earliest);
+        em.flush();
+        em.clear();
+
+        ItemDto expected = new ItemDto();
+        expected.setLastBooking(latest);
+        expected.setNextBooking(next);
+
+        ItemDto result = itemService.getItemById(itemId, owner.getId());
+
+        assertEquals(expected.getLastBooking(), result.getLastBooking());
+        assertEquals(expected.getNextBooking(), result.getNextBooking());
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareits.item.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
+import ru.practicum.shareits.item.dto.CommentView;
+import ru.practicum.shareits.item.model.Comment;
+import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.user.model.User;
+import ru.practicum.shareits.user.storage.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "shareit.items.comments.preview-size=2")
+class CommentsRepositoryTest {
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ItemRepository itemRepository;
+
+    @Autowired
+    private CommentsRepository commentsRepository;
+
+    private final Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+
+    @BeforeEach
+    public void setUp() {
+        LocalDateTime time = LocalDateTime.now();
+        User user = userRepository.save(new User(1L, "mail@ya.ru", "user"));
+        User author = userRepository.save(new User(2L, "mail2@ya.ru", "author"));
+        Item item = itemRepository.save(new Item(1L, user, "item", "useful", true, List.of(), null));
+        Item item2 = itemRepository.save(new Item(2L, user, "item2", "useful2", true, List.of(), null));
+        itemRepository.save(new Item(3L, user, "item3", "useful3", true, List.of(), null));
+        for (int i = 1; i <= 4; i++) {
+            saveComment(item, author, "comment" + i, time.plusMinutes(i));
+        }
+        saveComment(item2, author, "other", time);
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @DirtiesContext
+    @Test
+    void findLatestViewsByItemIdIn_thenOnlyLatestCommentsOfEachItem() {
+        List<CommentView> result = commentsRepository.findLatestViewsByItemIdIn(List.of(1L, 2L, 3L));
+
+        assertEquals(List.of("comment4", "comment3", "other"), result.stream()
+                .map(CommentView::getText)
+                .collect(Collectors.toList()));
+        assertEquals("author", result.get(0).getAuthorName());
+        assertEquals(2L, result.get(2).getItemId());
+    }
+
+    @DirtiesContext
+    @Test
+    void countByItemIdIn_thenCountsOfItemsWithComments() {
+        Map<Long, Long> result = commentsRepository.countByItemIdIn(List.of(1L, 2L, 3L));
+
+        assertEquals(Map.of(1L, 4L, 2L, 1L), result);
+    }
+
+    @DirtiesContext
+    @Test
+    void findViewsByItemId_thenNewestFirst() {
+        List<CommentView> result = commentsRepository.findViewsByItemId(1L, FromSizeRequest.of(2, 2, sort));
+
+        assertEquals(List.of("comment2", "comment1"), result.stream()
+                .map(CommentView::getText)
+                .collect(Collectors.toList()));
+    }
+
+    @DirtiesContext
+    @Test
+    void findViewsByItemIdBefore_thenPageAfterCursor() {
+        CommentView last = commentsRepository.findViewsByItemId(1L, FromSizeRequest.of(0, 2, sort)).get(1);
+        SeekRequest seekRequest = SeekRequest.of(PageCursor.of(last.getCreated(), last.getId()), 10, sort);
+
+        List<CommentView> result = commentsRepository.findViewsByItemIdBefore(1L, last.getCreated(), last.getId(),
+                seekRequest);
+
+        assertEquals(List.of("comment2", "comment1"), result.stream()
+                .map(CommentView::getText)
+                .collect(Collectors.toList()));
+    }
+
+    private void saveComment(Item item, User author, String text, LocalDateTime created) {
+        Comment comment = new Comment();
+        comment.setItem(item);
+        comment.setAuthor(author);
+        comment.setText(text);
+        comment.setCreated(created);
+        commentsRepository.save(comment);
+    }
+}
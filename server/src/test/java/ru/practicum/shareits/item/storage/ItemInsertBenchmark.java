@@ -0,0 +1,105 @@
+package ru.practicum.shareits.item.storage;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest
+class ItemInsertBenchmark {
+
+    private static final int ROWS = 5000;
+    private static final int WARMUP_ROUNDS = 2;
+    private static final int MEASURED_ROUNDS = 5;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void insertThroughput_whenJdbcBatchingEnabled_thenFewerStatementsAndHigherThroughput() {
+        User user = persistUser();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Result unbatched = measure(user, 1, statistics);
+        Result batched = measure(user, 50, statistics);
+
+        log.info("Item insert, batch size 1: {} rows/s, {} statements per round",
+                unbatched.rowsPerSecond(), unbatched.statements);
+        log.info("Item insert, batch size 50: {} rows/s, {} statements per round",
+                batched.rowsPerSecond(), batched.statements);
+        log.info("Item insert throughput gain: {}x",
+                String.format("%.2f", (double) batched.rowsPerSecond() / unbatched.rowsPerSecond()));
+        assertTrue(batched.statements * 10 < unbatched.statements);
+    }
+
+    private Result measure(User user, int batchSize, Statistics statistics) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            insert(user, batchSize);
+        }
+        statistics.clear();
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED_ROUNDS; i++) {
+            insert(user, batchSize);
+        }
+        long elapsed = System.nanoTime() - started;
+        return new Result(elapsed, statistics.getPrepareStatementCount() / MEASURED_ROUNDS);
+    }
+
+    private void insert(User user, int batchSize) {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+            entityManager.getTransaction().begin();
+            for (int i = 0; i < ROWS; i++) {
+                entityManager.persist(new Item(null, user, "bench" + i, "benchmark", true, List.of(), null));
+                if ((i + 1) % 50 == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.getTransaction().commit();
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private User persistUser() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            entityManager.getTransaction().begin();
+            User user = new User(null, "bench@ya.ru", "bench");
+            entityManager.persist(user);
+            entityManager.getTransaction().commit();
+            return user;
+        } finally {
+            entityManager.close();
+        }
+    }
+
+    private static class Result {
+
+        private final long elapsedNanos;
+        private final long statements;
+
+        Result(long elapsedNanos, long statements) {
+            this.elapsedNanos = elapsedNanos;
+            this.statements = statements;
+        }
+
+        long rowsPerSecond() {
+            return (long) ROWS * MEASURED_ROUNDS * 1_000_000_000L / elapsedNanos;
+        }
+    }
+}
@@ -1,35 +1,53 @@
 package ru.practicum.shareits.item.storage;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.booking.storage.BookingRepository;
-import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.dto.ItemDto;
+import ru.practicum.shareits.item.dto.ItemView;
+import ru.practicum.shareits.item.model.Comment;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.request.model.ItemRequest;
 import ru.practicum.shareits.request.storage.ItemRequestRepository;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
 
+import javax.persistence.Cache;
+import javax.persistence.EntityManagerFactory;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
 
-@DataJpaTest
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class ItemRepositoryTest {
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
+    @Autowired
+    private CommentsRepository commentsRepository;
+
     @Autowired
     private UserRepository userRepository;
 
@@ -39,6 +57,9 @@ class ItemRepositoryTest {
     @Autowired
     private BookingRepository bookingRepository;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @BeforeEach
     public void setUp() {
         LocalDateTime time = LocalDateTime.now();
@@ -104,16 +125,60 @@ class ItemRepositoryTest {
         assertEquals("useful3", result.get(0).getDescription());
     }
 
+    @DirtiesContext
+    @Test
+    void findAllByUserId_whenCommentsAndAuthorsRead_thenConstantQueryCount() {
+        User booker = userRepository.findById(2L).orElseThrow();
+        for (Item item : itemRepository.findAll()) {
+            for (int i = 0; i < 3; i++) {
+                User author = userRepository.save(new User(null, "author" + item.getId() + i + "@ya.ru", "author"));
+                Comment comment = new Comment();
+                comment.setText("comment");
+                comment.setItem(item);
+                comment.setAuthor(i == 0 ? booker : author);
+                comment.setCreated(LocalDateTime.now());
+                commentsRepository.save(comment);
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Item> items = itemRepository.findAllByUserId(1L, FromSizeRequest.of(0, 10, Sort.by("id")));
+        List<String> authorNames = items.stream()
+                .flatMap(item -> item.getComments().stream())
+                .map(comment -> comment.getAuthor().getName())
+                .collect(Collectors.toList());
+
+        assertEquals(3, items.size());
+        assertEquals(9, authorNames.size());
+        assertTrue(statistics.getPrepareStatementCount() <= 4);
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByUserIdAndIdGreaterThan() {
+        Pageable pageable = SeekRequest.of(PageCursor.of(1L), 1, Sort.by("id").ascending());
+
+        List<Item> result = itemRepository.findAllByUserIdAndIdGreaterThan(1L, 1L, pageable);
+
+        assertEquals(1, result.size());
+        assertEquals("useful2", result.get(0).getDescription());
+    }
+
     @DirtiesContext
     @Test
     void findItemsByRequest_whenRequestInName() {
         Sort sort = Sort.by("id").ascending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
 
-        List<Item> result = itemRepository.findItemsByRequest("iTem", pageable);
+        List<ItemView> result = itemRepository.findItemsByRequest("iTem", pageable);
 
-        assertEquals(4, result.size());
+        assertEquals(3, result.size());
         assertEquals("useful", result.get(0).getDescription());
+        assertTrue(result.stream().allMatch(ItemView::getAvailable));
     }
 
 
@@ -123,7 +188,7 @@ class ItemRepositoryTest {
         Sort sort = Sort.by("id").ascending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
 
-        List<Item> result = itemRepository.findItemsByRequest("UsEf", pageable);
+        List<ItemView> result = itemRepository.findItemsByRequest("UsEf", pageable);
 
         assertEquals(3, result.size());
         assertEquals("useful", result.get(0).getDescription());
@@ -135,21 +200,53 @@ class ItemRepositoryTest {
         Sort sort = Sort.by("id").ascending();
         Pageable pageable = FromSizeRequest.of(2, 2, sort);
 
-        List<Item> result = itemRepository.findItemsByRequest("iTem", pageable);
+        List<ItemView> result = itemRepository.findItemsByRequest("iTem", pageable);
+
+        assertEquals(1, result.size());
+        assertEquals("useful4", result.get(0).getDescription());
+    }
+
+    @DirtiesContext
+    @Test
+    void findItemsByRequest_whenRequestInNameAndDescription_thenNameMatchesFirst() {
+        User user = userRepository.findById(1L).orElseThrow();
+        itemRepository.save(new Item(5L, user, "saw", "cordless drill", true, List.of(), null));
+        itemRepository.save(new Item(6L, user, "drill", "hand tool", true, List.of(), null));
+        Sort sort = Sort.by("id").ascending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+
+        List<ItemView> result = itemRepository.findItemsByRequest("DRILL", pageable);
 
         assertEquals(2, result.size());
-        assertEquals("useful3", result.get(0).getDescription());
+        assertEquals("drill", result.get(0).getName());
+        assertEquals("saw", result.get(1).getName());
     }
 
     @DirtiesContext
     @Test
-    void updateItemById_whenUpdateName() {
+    void findItemsByRequest_whenRequestHasWildcards_thenMatchedLiterally() {
+        User user = userRepository.findById(1L).orElseThrow();
+        itemRepository.save(new Item(5L, user, "100% cotton", "shirt", true, List.of(), null));
+        itemRepository.save(new Item(6L, user, "1000 cotton", "shirt_xl", true, List.of(), null));
+        itemRepository.save(new Item(7L, user, "a\\b", "rope", true, List.of(), null));
+        Pageable pageable = FromSizeRequest.of(0, 10, Sort.by("id").ascending());
+
+        assertEquals(List.of(5L), ids(itemRepository.findItemsByRequest("0%", pageable)));
+        assertEquals(List.of(6L), ids(itemRepository.findItemsByRequest("t_x", pageable)));
+        assertEquals(List.of(7L), ids(itemRepository.findItemsByRequest("a\\b", pageable)));
+        assertEquals(List.of(5L), ids(itemRepository.findItemsByRequest("%", pageable)));
+    }
+
+    @DirtiesContext
+    @Test
+    void updateItemByIdAndUserId_whenUpdateName() {
         ItemDto itemDto = new ItemDto();
         itemDto.setName("updated item");
 
-        Item result = itemRepository.updateItemById(itemDto, 1L);
+        int updated = itemRepository.updateItemByIdAndUserId(itemDto, 1L, 1L);
+        Item result = itemRepository.findById(1L).orElseThrow();
 
-        assertEquals(1, result.getId());
+        assertEquals(1, updated);
         assertEquals("useful", result.getDescription());
         assertEquals("updated item", result.getName());
         assertTrue(result.getAvailable());
@@ -157,13 +254,14 @@ class ItemRepositoryTest {
 
     @DirtiesContext
     @Test
-    void updateItemById_whenUpdateDescription() {
+    void updateItemByIdAndUserId_whenUpdateDescription() {
         ItemDto itemDto = new ItemDto();
         itemDto.setDescription("updated");
 
-        Item result = itemRepository.updateItemById(itemDto, 1L);
+        int updated = itemRepository.updateItemByIdAndUserId(itemDto, 1L, 1L);
+        Item result = itemRepository.findById(1L).orElseThrow();
 
-        assertEquals(1, result.getId());
+        assertEquals(1, updated);
         assertEquals("updated", result.getDescription());
         assertEquals("item", result.getName());
         assertTrue(result.getAvailable());
@@ -171,13 +269,14 @@ class ItemRepositoryTest {
 
     @DirtiesContext
     @Test
-    void updateItemById_whenUpdateAvailable() {
+    void updateItemByIdAndUserId_whenUpdateAvailable() {
         ItemDto itemDto = new ItemDto();
         itemDto.setAvailable(false);
 
-        Item result = itemRepository.updateItemById(itemDto, 1L);
+        int updated = itemRepository.updateItemByIdAndUserId(itemDto, 1L, 1L);
+        Item result = itemRepository.findById(1L).orElseThrow();
 
-        assertEquals(1, result.getId());
+        assertEquals(1, updated);
         assertEquals("useful", result.getDescription());
         assertEquals("item", result.getName());
         assertFalse(result.getAvailable());
@@ -185,10 +284,192 @@ class ItemRepositoryTest {
 
     @DirtiesContext
     @Test
-    void updateItemById_whenUserNotFounded_thenEntityNotExistsException() {
+    void updateItemByIdAndUserId_whenNothingToUpdate_thenOwnershipStillChecked() {
+        ItemDto itemDto = new ItemDto();
+
+        assertEquals(1, itemRepository.updateItemByIdAndUserId(itemDto, 1L, 1L));
+        assertEquals(0, itemRepository.updateItemByIdAndUserId(itemDto, 1L, 2L));
+    }
+
+    @DirtiesContext
+    @Test
+    void updateItemByIdAndUserId_whenNotOwner_thenNothingUpdated() {
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("updated item");
+
+        int updated = itemRepository.updateItemByIdAndUserId(itemDto, 1L, 2L);
+        Item result = itemRepository.findById(1L).orElseThrow();
+
+        assertEquals(0, updated);
+        assertEquals("item", result.getName());
+    }
+
+    @DirtiesContext
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Test
+    void updateItemByIdAndUserId_thenOtherItemsKeptInSecondLevelCache() {
+        itemRepository.findById(2L).orElseThrow();
+        Cache cache = entityManagerFactory.getCache();
+        assertTrue(cache.contains(Item.class, 2L));
+        ItemDto itemDto = new ItemDto();
+        itemDto.setName("updated item");
+
+        assertEquals(1, itemRepository.updateItemByIdAndUserId(itemDto, 1L, 1L));
+
+        assertTrue(cache.contains(Item.class, 2L));
+        assertEquals("updated item", itemRepository.findById(1L).orElseThrow().getName());
+    }
+
+    @DirtiesContext
+    @Test
+    void updateItemByIdAndUserId_whenItemNotFounded_thenNothingUpdated() {
         ItemDto itemDto = new ItemDto();
         itemDto.setAvailable(false);
 
-        assertThrows(EntityNotExistsException.class, () -> itemRepository.updateItemById(itemDto, 99L));
+        assertEquals(0, itemRepository.updateItemByIdAndUserId(itemDto, 99L, 1L));
+    }
+
+    @DirtiesContext
+    @Test
+    void linkBooking_whenEarlierFutureBooking_thenNextBookingReplaced() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = itemRepository.findById(1L).orElseThrow();
+        User booker = userRepository.findById(2L).orElseThrow();
+        Booking later = bookingRepository.findById(1L).orElseThrow();
+        Booking earlier = bookingRepository.save(new Booking(null, item, booker, Status.WAITING,
+                now.plusHours(12), now.plusHours(20)));
+        Booking latest = bookingRepository.save(new Booking(null, item, booker, Status.WAITING,
+                now.plusDays(3), now.plusDays(4)));
+
+        itemRepository.linkBooking(later, now);
+        itemRepository.linkBooking(earlier, now);
+        itemRepository.linkBooking(latest, now);
+        entityManager.flush();
+        entityManager.clear();
+        Item result = itemRepository.findWithBookingPointersById(1L).orElseThrow();
+
+        assertNull(result.getLastBooking());
+        assertEquals(earlier.getId(), result.getNextBooking().getId());
+        assertEquals(2L, result.getNextBooking().getBooker().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void linkBooking_whenPastBooking_thenLastBookingSet() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = itemRepository.findById(1L).orElseThrow();
+        User booker = userRepository.findById(2L).orElseThrow();
+        Booking past = bookingRepository.save(new Booking(null, item, booker, Status.APPROVED,
+                now.minusDays(2), now.minusDays(1)));
+
+        itemRepository.linkBooking(past, now);
+        entityManager.flush();
+        entityManager.clear();
+        Item result = itemRepository.findWithBookingPointersById(1L).orElseThrow();
+
+        assertEquals(past.getId(), result.getLastBooking().getId());
+        assertNull(result.getNextBooking());
+    }
+
+    @DirtiesContext
+    @Test
+    void rollBookingPointers_whenNextBookingStarted_thenPointersMovedForward() {
+        LocalDateTime now = LocalDateTime.now();
+        Item item = itemRepository.findById(1L).orElseThrow();
+        User booker = userRepository.findById(2L).orElseThrow();
+        Booking started = bookingRepository.findById(1L).orElseThrow();
+        Booking following = bookingRepository.save(new Booking(null, item, booker, Status.WAITING,
+                now.plusDays(3), now.plusDays(4)));
+        itemRepository.linkBooking(started, now);
+        itemRepository.linkBooking(following, now);
+        entityManager.flush();
+        entityManager.clear();
+        LocalDateTime later = now.plusDays(1).plusHours(1);
+
+        assertEquals(1, itemRepository.rollBookingPointers(later, 10));
+        assertEquals(0, itemRepository.rollBookingPointers(later, 10));
+        entityManager.flush();
+        entityManager.clear();
+        Item result = itemRepository.findWithBookingPointersById(1L).orElseThrow();
+
+        assertEquals(1L, result.getLastBooking().getId());
+        assertEquals(following.getId(), result.getNextBooking().getId());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByUserId_whenBookingPointersRead_thenSingleQuery() {
+        LocalDateTime now = LocalDateTime.now();
+        itemRepository.linkBooking(bookingRepository.findById(1L).orElseThrow(), now);
+        entityManager.flush();
+        entityManager.clear();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Item> items = itemRepository.findAllByUserId(1L, FromSizeRequest.of(0, 10, Sort.by("id")));
+
+        assertEquals(1L, items.get(0).getNextBooking().getId());
+        assertEquals(2L, items.get(0).getNextBooking().getBooker().getId());
+        assertNull(items.get(1).getNextBooking());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void exportViewsByUserId_thenAllOwnerItemsInIdOrder() {
+        entityManager.flush();
+        List<ItemView> result = new ArrayList<>();
+
+        itemRepository.exportViewsByUserId(1L, result::addAll);
+
+        assertEquals(List.of(1L, 2L, 3L), result.stream().map(ItemView::getId).collect(Collectors.toList()));
+        assertEquals("item", result.get(0).getName());
+    }
+
+    @DirtiesContext
+    @Test
+    void insertItems_thenRowsInsertedWithGeneratedIds() {
+        User user = userRepository.findById(1L).orElseThrow();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            items.add(new Item(null, user, "batch" + i, "imported", true, List.of(), i == 0 ? 1L : null));
+        }
+
+        List<Long> ids = itemRepository.insertItems(items);
+        entityManager.clear();
+
+        assertEquals(3, ids.size());
+        assertEquals(3, ids.stream().distinct().count());
+        Item first = itemRepository.findById(ids.get(0)).orElseThrow();
+        assertEquals("batch0", first.getName());
+        assertEquals(1L, first.getRequestId());
+        assertEquals(6, itemRepository.findAllByUserId(1L, FromSizeRequest.of(0, 10, Sort.by("id"))).size());
+    }
+
+    @DirtiesContext
+    @Test
+    void insertItems_whenManyRows_thenInsertedInJdbcBatches() {
+        User user = userRepository.findById(1L).orElseThrow();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            items.add(new Item(null, user, "batch" + i, "imported", true, List.of(), null));
+        }
+        entityManager.flush();
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> ids = itemRepository.insertItems(items);
+
+        assertEquals(120, ids.stream().distinct().count());
+        assertEquals(120, statistics.getEntityInsertCount());
+        assertTrue(statistics.getPrepareStatementCount() <= 10);
+    }
+
+    private List<Long> ids(List<ItemView> items) {
+        return items.stream()
+                .map(ItemView::getId)
+                .collect(Collectors.toList());
     }
 }
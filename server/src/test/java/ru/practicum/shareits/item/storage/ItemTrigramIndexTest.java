@@ -0,0 +1,110 @@
+package ru.practicum.shareits.item.storage;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import ru.practicum.shareits.item.model.Item;
+import ru.practicum.shareits.user.model.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ItemTrigramIndexTest {
+
+    private ItemRepository itemRepository;
+    private MeterRegistry meterRegistry;
+    private ItemTrigramIndex index;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        itemRepository = mock(ItemRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        index = new ItemTrigramIndex(itemRepository, meterRegistry, true);
+        user = new User(1L, "mail@ya.ru", "user");
+
+        index.index(new Item(1L, user, "Drill", "cordless power tool", true, List.of(), null));
+        index.index(new Item(2L, user, "Saw", "hand tool for wood", true, List.of(), null));
+        index.index(new Item(3L, user, "Screwdriver", "power drill bits", false, List.of(), null));
+        index.index(new Item(4L, user, "Hammer", "heavy tool", true, List.of(), null));
+    }
+
+    @Test
+    void search_whenRequestInNameOrDescription_thenReturnAvailableItemsById() {
+        assertEquals(List.of(1L, 2L, 4L), index.search("TOOL", 0, 10));
+        assertEquals(List.of(1L), index.search("drIL", 0, 10));
+    }
+
+    @Test
+    void search_whenRequestInNameAndDescription_thenNameMatchesFirst() {
+        index.index(new Item(5L, user, "Toolbox", "metal case", true, List.of(), null));
+
+        assertEquals(List.of(5L, 1L, 2L, 4L), index.search("tool", 0, 10));
+        assertEquals(List.of(1L, 2L), index.search("tool", 1, 2));
+    }
+
+    @Test
+    void search_whenRequestShorterThanTrigram_thenScanAllItems() {
+        assertEquals(List.of(2L, 1L), index.search("w", 0, 10));
+    }
+
+    @Test
+    void search_whenOffsetAndLimit_thenReturnPage() {
+        assertEquals(List.of(2L), index.search("tool", 1, 1));
+        assertEquals(List.of(), index.search("tool", 3, 10));
+    }
+
+    @Test
+    void search_whenTrigramsMatchButSubstringDoesNot_thenSkipItem() {
+        index.index(new Item(5L, user, "abcxbcd", "", true, List.of(), null));
+
+        assertEquals(List.of(), index.search("abcd", 0, 10));
+    }
+
+    @Test
+    void index_whenItemUpdated_thenOldTextNotFound() {
+        index.index(new Item(2L, user, "Axe", "sharp", true, List.of(), null));
+
+        assertEquals(List.of(), index.search("saw", 0, 10));
+        assertEquals(List.of(2L), index.search("sharp", 0, 10));
+        assertEquals(List.of(1L, 4L), index.search("tool", 0, 10));
+    }
+
+    @Test
+    void load_whenEnabled_thenIndexAllItems() {
+        ItemTrigramIndex loaded = new ItemTrigramIndex(itemRepository, new SimpleMeterRegistry(), true);
+        when(itemRepository.findAll(any(Pageable.class))).thenReturn(new PageImpl<>(
+                List.of(new Item(7L, user, "Ladder", "tall", true, List.of(), null))));
+
+        loaded.load();
+
+        assertEquals(List.of(7L), loaded.search("ladd", 0, 10));
+    }
+
+    @Test
+    void index_whenDisabled_thenDoNothing() {
+        ItemTrigramIndex disabled = new ItemTrigramIndex(itemRepository, new SimpleMeterRegistry(), false);
+
+        disabled.load();
+        disabled.index(new Item(7L, user, "Ladder", "tall", true, List.of(), null));
+
+        assertFalse(disabled.isEnabled());
+        assertEquals(List.of(), disabled.search("ladd", 0, 10));
+        verify(itemRepository, never()).findAll(any(Pageable.class));
+    }
+
+    @Test
+    void metrics_whenItemsIndexed_thenReportSizeAndLatency() {
+        index.search("tool", 0, 10);
+
+        assertEquals(4, meterRegistry.get("items.search.index.documents").gauge().value());
+        assertTrue(meterRegistry.get("items.search.index.trigrams").gauge().value() > 0);
+        assertTrue(meterRegistry.get("items.search.index.postings").gauge().value() > 0);
+        assertEquals(1, meterRegistry.get("items.search.index.query").timer().count());
+    }
+}
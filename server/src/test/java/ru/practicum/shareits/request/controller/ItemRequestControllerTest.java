@@ -178,7 +178,7 @@ class ItemRequestControllerTest {
     @SneakyThrows
     @Test
     void getAllRequests_whenIsOk_thenReturnRequestsList() {
-        Sort sort = Sort.by("created").descending();
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
         when(itemRequestService.getAllRequests(userId, pageable)).thenReturn(List.of(expectedItemRequestDto));
 
@@ -2,7 +2,9 @@ package ru.practicum.shareits.request.mapper;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import ru.practicum.shareits.item.dto.ItemView;
 import ru.practicum.shareits.request.dto.ItemRequestDto;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.model.ItemRequest;
 
 import java.time.LocalDateTime;
@@ -66,4 +68,19 @@ class ItemRequestMapperTest {
 
         assertEquals(List.of(expectedItemRequestDto), result);
     }
+
+    @Test
+    void convertAllViewsToItemRequestDto() {
+        ItemRequestView itemRequestView = new ItemRequestView(1L, 2L, "something", itemRequestWithId.getCreated());
+        ItemRequestView otherRequestView = new ItemRequestView(2L, 3L, "other", itemRequestWithId.getCreated());
+        ItemView itemView = new ItemView(5L, "item", "useful", true, 1L);
+        expectedItemRequestDto.setItemViews(List.of(itemView));
+
+        List<ItemRequestDto> result = itemRequestMapper.convertAllViewsToItemRequestDto(
+                List.of(itemRequestView, otherRequestView), List.of(itemView));
+
+        assertEquals(2, result.size());
+        assertEquals(expectedItemRequestDto, result.get(0));
+        assertEquals(0, result.get(1).getItems().size());
+    }
 }
\ No newline at end of file
@@ -10,7 +10,12 @@ import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import ru.practicum.shareits.common.exceptions.EntityNotExistsException;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
+import ru.practicum.shareits.item.dto.ItemView;
+import ru.practicum.shareits.item.storage.ItemRepository;
 import ru.practicum.shareits.request.dto.ItemRequestDto;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.mapper.ItemRequestMapper;
 import ru.practicum.shareits.request.model.ItemRequest;
 import ru.practicum.shareits.request.storage.ItemRequestRepository;
@@ -35,12 +40,17 @@ class ItemRequestServiceImplTest {
     @Mock
     private ItemRequestRepository itemRequestRepository;
 
+    @Mock
+    private ItemRepository itemRepository;
+
     @Mock
     private ItemRequestMapper mapper;
 
     private Long id;
     private ItemRequest itemRequestWithId;
     private ItemRequest itemRequestWithoutId;
+    private ItemRequestView itemRequestView;
+    private ItemView itemView;
     private ItemRequestDto itemRequestDto;
     private ItemRequestDto expectedItemRequestDto;
 
@@ -61,6 +71,9 @@ class ItemRequestServiceImplTest {
         itemRequestWithoutId.setDescription("something");
         itemRequestWithoutId.setCreated(time);
 
+        itemRequestView = new ItemRequestView(1L, 2L, "something", time);
+        itemView = new ItemView(3L, "item", "useful", true, 1L);
+
         itemRequestDto = new ItemRequestDto();
         itemRequestDto.setDescription("something");
 
@@ -116,14 +129,44 @@ class ItemRequestServiceImplTest {
     void getAllRequests_whenAllIsOk_thenReturnListOfItemRequest() {
         Sort sort = Sort.by("created").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
-        when(itemRequestRepository.findAllByUserIdIsNot(2L, pageable)).thenReturn(List.of(itemRequestWithId));
-        when(mapper.convertAllToItemRequestDto(List.of(itemRequestWithId))).thenReturn(List.of(expectedItemRequestDto));
+        when(itemRequestRepository.findAllByUserIdIsNot(2L, pageable)).thenReturn(List.of(itemRequestView));
+        when(itemRepository.findViewsByRequestIdIn(List.of(1L))).thenReturn(List.of(itemView));
+        when(mapper.convertAllViewsToItemRequestDto(List.of(itemRequestView), List.of(itemView)))
+                .thenReturn(List.of(expectedItemRequestDto));
 
         List<ItemRequestDto> actualResult = service.getAllRequests(2L, pageable);
 
         assertEquals(List.of(expectedItemRequestDto), actualResult);
     }
 
+    @Test
+    void getAllRequests_whenSeekRequest_thenFindAfterCursor() {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        LocalDateTime created = LocalDateTime.now();
+        Pageable pageable = SeekRequest.of(PageCursor.of(created, 5L), 10, sort);
+        when(itemRequestRepository.findAllByUserIdIsNotAfterCursor(2L, created, 5L, pageable))
+                .thenReturn(List.of(itemRequestView));
+        when(itemRepository.findViewsByRequestIdIn(List.of(1L))).thenReturn(List.of());
+        when(mapper.convertAllViewsToItemRequestDto(List.of(itemRequestView), List.of()))
+                .thenReturn(List.of(expectedItemRequestDto));
+
+        List<ItemRequestDto> actualResult = service.getAllRequests(2L, pageable);
+
+        assertEquals(List.of(expectedItemRequestDto), actualResult);
+    }
+
+    @Test
+    void getAllRequests_whenNoRequests_thenReturnEmptyListWithoutItemsQuery() {
+        Sort sort = Sort.by("created").descending();
+        Pageable pageable = FromSizeRequest.of(0, 10, sort);
+        when(itemRequestRepository.findAllByUserIdIsNot(2L, pageable)).thenReturn(List.of());
+
+        List<ItemRequestDto> actualResult = service.getAllRequests(2L, pageable);
+
+        assertEquals(List.of(), actualResult);
+        verify(itemRepository, never()).findViewsByRequestIdIn(any());
+    }
+
     @Test
     void getRequestById_whenIsOk_thenReturnItemRequest() {
         when(userRepository.existsById(2L)).thenReturn(true);
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.test.annotation.DirtiesContext;
@@ -11,8 +12,11 @@ import ru.practicum.shareits.booking.enums.Status;
 import ru.practicum.shareits.booking.model.Booking;
 import ru.practicum.shareits.booking.storage.BookingRepository;
 import ru.practicum.shareits.common.model.FromSizeRequest;
+import ru.practicum.shareits.common.model.PageCursor;
+import ru.practicum.shareits.common.model.SeekRequest;
 import ru.practicum.shareits.item.model.Item;
 import ru.practicum.shareits.item.storage.ItemRepository;
+import ru.practicum.shareits.request.dto.ItemRequestView;
 import ru.practicum.shareits.request.model.ItemRequest;
 import ru.practicum.shareits.user.model.User;
 import ru.practicum.shareits.user.storage.UserRepository;
@@ -25,6 +29,9 @@ import static org.junit.jupiter.api.Assertions.*;
 @DataJpaTest
 class ItemRequestRepositoryTest {
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     @Autowired
     private ItemRequestRepository itemRequestRepository;
 
@@ -97,7 +104,7 @@ class ItemRequestRepositoryTest {
         Sort sort = Sort.by("created").descending();
         Pageable pageable = FromSizeRequest.of(0, 10, sort);
 
-        List<ItemRequest> result = itemRequestRepository.findAllByUserIdIsNot(5L, pageable);
+        List<ItemRequestView> result = itemRequestRepository.findAllByUserIdIsNot(5L, pageable);
 
         assertEquals(3, result.size());
         assertEquals("something3", result.get(0).getDescription());
@@ -109,7 +116,23 @@ class ItemRequestRepositoryTest {
         Sort sort = Sort.by("created").descending();
         Pageable pageable = FromSizeRequest.of(1, 1, sort);
 
-        List<ItemRequest> result = itemRequestRepository.findAllByUserIdIsNot(5L, pageable);
+        List<ItemRequestView> result = itemRequestRepository.findAllByUserIdIsNot(5L, pageable);
+
+        assertEquals(1, result.size());
+        assertEquals("something2", result.get(0).getDescription());
+    }
+
+    @DirtiesContext
+    @Test
+    void findAllByUserIdIsNotAfterCursor() {
+        Sort sort = Sort.by("created").descending().and(Sort.by("id").descending());
+        entityManager.flush();
+        entityManager.clear();
+        ItemRequest last = itemRequestRepository.findAllByUserId(2L, sort).get(0);
+        Pageable pageable = SeekRequest.of(PageCursor.of(last.getCreated(), last.getId()), 1, sort);
+
+        List<ItemRequestView> result = itemRequestRepository.findAllByUserIdIsNotAfterCursor(5L, last.getCreated(),
+                last.getId(), pageable);
 
         assertEquals(1, result.size());
         assertEquals("something2", result.get(0).getDescription());
@@ -0,0 +1,85 @@
+package ru.practicum.shareits.user.storage;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareits.user.model.User;
+
+import javax.persistence.EntityManagerFactory;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserRepositoryTest {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    public void setUp() {
+        userId = userRepository.save(new User(null, "mail@ya.ru", "user")).getId();
+        userRepository.findById(userId);
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @DirtiesContext
+    @Test
+    void findById_whenCached_thenNoStatements() {
+        User result = userRepository.findById(userId).orElseThrow();
+
+        assertEquals("user", result.getName());
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void existsById_whenCached_thenNoStatements() {
+        assertTrue(userRepository.existsById(userId));
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void existsById_whenNotExists_thenFalse() {
+        assertFalse(userRepository.existsById(99L));
+        assertEquals(1, statistics.getSecondLevelCacheMissCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void save_whenUpdated_thenCachedEntryReplaced() {
+        User user = userRepository.findById(userId).orElseThrow();
+        user.setName("updated");
+        userRepository.save(user);
+        statistics.clear();
+
+        User result = userRepository.findById(userId).orElseThrow();
+
+        assertEquals("updated", result.getName());
+        assertEquals(1, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @DirtiesContext
+    @Test
+    void deleteById_whenCached_thenNotFound() {
+        userRepository.deleteById(userId);
+
+        assertFalse(userRepository.existsById(userId));
+        assertTrue(userRepository.findById(userId).isEmpty());
+    }
+}